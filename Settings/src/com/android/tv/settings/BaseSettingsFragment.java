@@ -54,6 +54,7 @@ public abstract class BaseSettingsFragment extends LeanbackSettingsFragmentCompa
                 Bundle b = pref.getExtras();
                 b.putString(SlicesConstants.TAG_TARGET_URI, slicePref.getUri());
                 b.putCharSequence(SlicesConstants.TAG_SCREEN_TITLE, slicePref.getTitle());
+                b.putCharSequence(SlicesConstants.TAG_SCREEN_SUMMARY, slicePref.getSummary());
             }
         }
         final Fragment f =
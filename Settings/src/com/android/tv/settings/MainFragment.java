@@ -72,8 +72,10 @@ import com.android.tv.settings.customization.CustomizationConstants;
 import com.android.tv.settings.customization.Partner;
 import com.android.tv.settings.customization.PartnerPreferencesMerger;
 import com.android.tv.settings.overlay.FlavorUtils;
+import com.android.tv.settings.startup.StartupScheduler;
 import com.android.tv.settings.suggestions.SuggestionPreference;
 import com.android.tv.settings.system.SecurityFragment;
+import com.android.tv.settings.util.SliceAvailabilityRegistry;
 import com.android.tv.settings.util.SliceUtils;
 import com.android.tv.twopanelsettings.TwoPanelSettingsFragment;
 import com.android.tv.twopanelsettings.slices.SlicePreference;
@@ -94,6 +96,10 @@ public class MainFragment extends PreferenceControllerFragment implements
         HotwordStateListener {
 
     private static final String TAG = "MainFragment";
+    private static final String TASK_PARTNER_PREFERENCES = "partner_preferences";
+    private static final String TASK_INPUTS_SLICE_URI = "inputs_slice_uri";
+    private static final String TASK_SOUND_INFO = "sound_info";
+    private static final String TASK_SOUND_PREFERENCE = "sound_preference";
     private static final String KEY_BASIC_MODE_SUGGESTION = "basic_mode_suggestion";
     private static final String KEY_BASIC_MODE_EXIT = "basic_mode_exit";
     @VisibleForTesting
@@ -137,6 +143,9 @@ public class MainFragment extends PreferenceControllerFragment implements
     boolean mHasAccounts;
 
     private SuggestionQuickSettingPrefsContainer mSuggestionQuickSettingPrefsContainer;
+    private StartupScheduler mStartupScheduler;
+    // Loaded in the background by TASK_SOUND_INFO, read by TASK_SOUND_PREFERENCE.
+    private volatile SoundPrefInfo mSoundPrefInfo;
 
     private final BroadcastReceiver mBCMReceiver = new BroadcastReceiver() {
         @Override
@@ -147,6 +156,9 @@ public class MainFragment extends PreferenceControllerFragment implements
 
     private ConnectivityListenerLite mConnectivityListenerLite;
 
+    private final SliceAvailabilityRegistry.Listener mSliceAvailabilityListener =
+            this::updateSlicePreferences;
+
     public static MainFragment newInstance() {
         return new MainFragment();
     }
@@ -174,6 +186,9 @@ public class MainFragment extends PreferenceControllerFragment implements
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        // Started by onCreatePreferences(), once the preferences are inflated.
+        mStartupScheduler = new StartupScheduler(TAG);
+        // Must precede onStart(), where the suggestion controller connects to its service.
         mSuggestionQuickSettingPrefsContainer.onCreate();
         if (isWifiScanOptimisationEnabled()) {
             mConnectivityListenerLite = new ConnectivityListenerLite(
@@ -185,6 +200,9 @@ public class MainFragment extends PreferenceControllerFragment implements
         }
         mBtAdapter = BluetoothAdapter.getDefaultAdapter();
         super.onCreate(savedInstanceState);
+        // Slices are hidden until the registry knows they are enabled.
+        SliceAvailabilityRegistry.getInstance(getContext())
+                .addListener(mSliceAvailabilityListener);
         // This is to record the initial start of Settings root in two panel settings case, as the
         // MainFragment is the left-most pane and will not be slided in from preview pane. For
         // classic settings case, the event will be recorded in onResume() as this is an instance
@@ -202,24 +220,33 @@ public class MainFragment extends PreferenceControllerFragment implements
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
         mSuggestionQuickSettingPrefsContainer.showOrHideQuickSettings();
-        updateAccountPref();
-        updateAccessoryPref();
+        // Account and accessory preferences are updated in onStart(), before the first frame.
         updateBasicModeSuggestion();
 
-        SlicePreference sliceInputsPreference = findPreference(KEY_CHANNELS_AND_INPUTS_SLICE);
-        if (sliceInputsPreference != null
-                && !SliceUtils.isSliceProviderValid(
-                        requireContext(), sliceInputsPreference.getUri())) {
-            sliceInputsPreference.setUri(
-                    getString(R.string.channels_and_inputs_fallback_slice_uri));
-        }
-
-        maybeUseSlice(findPreference(KEY_CHANNELS_AND_INPUTS), sliceInputsPreference);
+        maybeUseSlice(findPreference(KEY_CHANNELS_AND_INPUTS),
+                findPreference(KEY_CHANNELS_AND_INPUTS_SLICE));
         maybeUseSlice(findPreference(KEY_HELP_AND_FEEDBACK),
                 findPreference(KEY_HELP_AND_FEEDBACK_SLICE));
         return super.onCreateView(inflater, container, savedInstanceState);
     }
 
+    @Override
+    public void onViewCreated(View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        mStartupScheduler.waitForFirstFrame(view);
+    }
+
+    /** Shows the slice preferences whose slices are enabled, or else their fallbacks. */
+    @VisibleForTesting
+    void updateSlicePreferences() {
+        maybeUseSlice(findPreference(KEY_CHANNELS_AND_INPUTS),
+                findPreference(KEY_CHANNELS_AND_INPUTS_SLICE));
+        maybeUseSlice(findPreference(KEY_HELP_AND_FEEDBACK),
+                findPreference(KEY_HELP_AND_FEEDBACK_SLICE));
+        maybeUseSlice(findPreference(KEY_DISPLAY_AND_SOUND),
+                findPreference(KEY_DISPLAY_AND_SOUND_SLICE));
+    }
+
     private void updateConnectivityType(ActiveNetworkProvider activeNetworkProvider) {
         final Preference networkPref = findPreference(KEY_NETWORK);
         if (networkPref == null) {
@@ -248,13 +275,7 @@ public class MainFragment extends PreferenceControllerFragment implements
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         setPreferencesFromResource(getPreferenceScreenResId(), null);
-        if (Partner.getInstance(getContext()).isCustomizationPackageProvided()) {
-            PartnerPreferencesMerger.mergePreferences(
-                    getContext(),
-                    getPreferenceScreen(),
-                    CustomizationConstants.MAIN_SCREEN
-            );
-        }
+        startStartupTasks();
         if (isRestricted()) {
             Preference appPref = findPreference(KEY_APPLICATIONS);
             if (appPref != null) {
@@ -282,7 +303,6 @@ public class MainFragment extends PreferenceControllerFragment implements
             }
         }
         mSuggestionQuickSettingPrefsContainer.onCreatePreferences();
-        updateSoundSettings();
         maybeUseSlice(findPreference(KEY_DISPLAY_AND_SOUND),
             findPreference(KEY_DISPLAY_AND_SOUND_SLICE));
     }
@@ -352,28 +372,92 @@ public class MainFragment extends PreferenceControllerFragment implements
         }
     }
 
+    /**
+     * Schedules the lookups the preferences depend on. The partner preferences and the slice uris
+     * shape the first frame and are done right away. The sound preference, hidden until the sound
+     * activity is found, is looked up in the background meanwhile.
+     */
+    private void startStartupTasks() {
+        final Context context = getContext();
+        mStartupScheduler.addTask(TASK_PARTNER_PREFERENCES,
+                StartupScheduler.PHASE_BEFORE_FIRST_FRAME, false, () -> {
+                    if (Partner.getInstance(context).isCustomizationPackageProvided()) {
+                        PartnerPreferencesMerger.mergePreferences(
+                                context,
+                                getPreferenceScreen(),
+                                CustomizationConstants.MAIN_SCREEN
+                        );
+                    }
+                });
+        mStartupScheduler.addTask(TASK_INPUTS_SLICE_URI,
+                StartupScheduler.PHASE_BEFORE_FIRST_FRAME, false,
+                this::updateInputsSliceUri, TASK_PARTNER_PREFERENCES);
+        mStartupScheduler.addTask(TASK_SOUND_INFO, StartupScheduler.PHASE_BEFORE_FIRST_FRAME,
+                true, () -> mSoundPrefInfo = SoundPrefInfo.load(context));
+        mStartupScheduler.addTask(TASK_SOUND_PREFERENCE,
+                StartupScheduler.PHASE_BEFORE_FIRST_FRAME, false,
+                () -> updateSoundSettings(mSoundPrefInfo),
+                TASK_SOUND_INFO, TASK_PARTNER_PREFERENCES);
+        mStartupScheduler.start();
+    }
+
+    /** Falls back to the inputs slice of the platform if the one of the device is missing. */
+    private void updateInputsSliceUri() {
+        SlicePreference sliceInputsPreference = findPreference(KEY_CHANNELS_AND_INPUTS_SLICE);
+        if (sliceInputsPreference != null
+                && !SliceUtils.isSliceProviderValid(
+                        requireContext(), sliceInputsPreference.getUri())) {
+            sliceInputsPreference.setUri(
+                    getString(R.string.channels_and_inputs_fallback_slice_uri));
+        }
+    }
+
     @VisibleForTesting
     void updateSoundSettings() {
+        updateSoundSettings(SoundPrefInfo.load(getContext()));
+    }
+
+    private void updateSoundSettings(SoundPrefInfo info) {
         final Preference soundPref = findPreference(KEY_SOUND);
         if (soundPref != null) {
-            Intent soundIntent = new Intent(ACTION_SOUND);
-            final ResolveInfo info = systemIntentIsHandled(getContext(), soundIntent);
-            soundPref.setVisible(info != null);
-            if (info != null && info.activityInfo != null) {
-                String pkgName = info.activityInfo.packageName;
-                Drawable icon = getDrawableResource(pkgName, "sound_icon");
-                if (icon != null) {
-                    soundPref.setIcon(icon);
-                }
-                String title = getStringResource(pkgName, "sound_pref_title");
-                if (!TextUtils.isEmpty(title)) {
-                    soundPref.setTitle(title);
-                }
-                String summary = getStringResource(pkgName, "sound_pref_summary");
-                if (!TextUtils.isEmpty(summary)) {
-                    soundPref.setSummary(summary);
-                }
+            soundPref.setVisible(info.mVisible);
+            if (info.mIcon != null) {
+                soundPref.setIcon(info.mIcon);
+            }
+            if (!TextUtils.isEmpty(info.mTitle)) {
+                soundPref.setTitle(info.mTitle);
+            }
+            if (!TextUtils.isEmpty(info.mSummary)) {
+                soundPref.setSummary(info.mSummary);
+            }
+        }
+    }
+
+    /** The sound preference as customized by the system app handling {@link #ACTION_SOUND}. */
+    private static final class SoundPrefInfo {
+        final boolean mVisible;
+        final Drawable mIcon;
+        final String mTitle;
+        final String mSummary;
+
+        private SoundPrefInfo(boolean visible, Drawable icon, String title, String summary) {
+            mVisible = visible;
+            mIcon = icon;
+            mTitle = title;
+            mSummary = summary;
+        }
+
+        /** Resolves the sound activity and loads its resources, on any thread. */
+        static SoundPrefInfo load(Context context) {
+            final ResolveInfo info = systemIntentIsHandled(context, new Intent(ACTION_SOUND));
+            if (info == null || info.activityInfo == null) {
+                return new SoundPrefInfo(info != null, null, null, null);
             }
+            String pkgName = info.activityInfo.packageName;
+            return new SoundPrefInfo(true,
+                    getDrawableResource(context, pkgName, "sound_icon"),
+                    getStringResource(context, pkgName, "sound_pref_title"),
+                    getStringResource(context, pkgName, "sound_pref_summary"));
         }
     }
 
@@ -383,9 +467,10 @@ public class MainFragment extends PreferenceControllerFragment implements
      * @param pkgName  the package name
      * @param resource name, e.g. "my_string_name"
      */
-    private String getStringResource(String pkgName, String resourceName) {
+    private static String getStringResource(Context context, String pkgName,
+            String resourceName) {
         try {
-            Context targetContext = getContext().createPackageContext(pkgName, 0);
+            Context targetContext = context.createPackageContext(pkgName, 0);
             int resId = targetContext.getResources().getIdentifier(
                     pkgName + ":string/" + resourceName, null, null);
             if (resId != 0) {
@@ -404,9 +489,10 @@ public class MainFragment extends PreferenceControllerFragment implements
      * @param pkgName  the package name
      * @param resource name, e.g. "my_icon_name"
      */
-    private Drawable getDrawableResource(String pkgName, String resourceName) {
+    private static Drawable getDrawableResource(Context context, String pkgName,
+            String resourceName) {
         try {
-            Context targetContext = getContext().createPackageContext(pkgName, 0);
+            Context targetContext = context.createPackageContext(pkgName, 0);
             int resId = targetContext.getResources().getIdentifier(
                     pkgName + ":drawable/" + resourceName, null, null);
             if (resId != 0) {
@@ -680,6 +766,9 @@ public class MainFragment extends PreferenceControllerFragment implements
 
     @Override
     public void onDestroy() {
+        mStartupScheduler.cancel();
+        SliceAvailabilityRegistry.getInstance(getContext())
+                .removeListener(mSliceAvailabilityListener);
         mSuggestionQuickSettingPrefsContainer.onDestroy();
         super.onDestroy();
     }
@@ -719,18 +808,21 @@ public class MainFragment extends PreferenceControllerFragment implements
     }
 
     private void updateConnectedDevicePref(String pkgName, Preference pref) {
-        Drawable icon = getDrawableResource(pkgName, "connected_devices_pref_icon");
+        Drawable icon = getDrawableResource(getContext(), pkgName, "connected_devices_pref_icon");
         if (icon != null) {
             pref.setIcon(icon);
         }
         String title =
                 (pref instanceof SlicePreference)
-                        ? getStringResource(pkgName, "connected_devices_slice_pref_title")
-                        : getStringResource(pkgName, "connected_devices_pref_title");
+                        ? getStringResource(getContext(), pkgName,
+                                "connected_devices_slice_pref_title")
+                        : getStringResource(getContext(), pkgName,
+                                "connected_devices_pref_title");
         if (!TextUtils.isEmpty(title)) {
             pref.setTitle(title);
         }
-        String summary = getStringResource(pkgName, "connected_devices_pref_summary");
+        String summary = getStringResource(getContext(), pkgName,
+                "connected_devices_pref_summary");
         if (!TextUtils.isEmpty(summary)) {
             pref.setSummary(summary);
         }
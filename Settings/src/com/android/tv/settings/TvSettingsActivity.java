@@ -31,13 +31,19 @@ import android.view.Gravity;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
 
 import com.android.tv.settings.overlay.FlavorUtils;
+import com.android.tv.settings.startup.StartupScheduler;
+import com.android.tv.twopanelsettings.PanelTransitionMetrics;
+import com.android.tv.twopanelsettings.slices.base.SliceMetrics;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.List;
 
 public abstract class TvSettingsActivity extends FragmentActivity {
@@ -70,6 +76,10 @@ public abstract class TvSettingsActivity extends FragmentActivity {
         super.onCreate(savedInstanceState);
 
         getWindow().addSystemFlags(SYSTEM_FLAG_HIDE_NON_SYSTEM_OVERLAY_WINDOWS);
+        if (getApplication() instanceof TvSettingsApplication) {
+            ((TvSettingsApplication) getApplication()).getStartupScheduler()
+                    .waitForFirstFrame(getWindow().getDecorView());
+        }
 
         if ((FlavorUtils.getFlavor(this) & getAvailableFlavors()) == 0) {
             Log.w(TAG, "Activity is not supported in current flavor");
@@ -231,6 +241,15 @@ public abstract class TvSettingsActivity extends FragmentActivity {
         reportStartupLatency();
     }
 
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd,
+            @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        SliceMetrics.dump(prefix, writer);
+        PanelTransitionMetrics.dump(prefix, writer);
+        StartupScheduler.dump(prefix, writer);
+    }
+
     private void reportStartupLatency() {
         if (mReportedStartupLatency) {
             return;
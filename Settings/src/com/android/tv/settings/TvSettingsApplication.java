@@ -18,29 +18,61 @@ package com.android.tv.settings;
 
 import android.app.Application;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.android.tv.settings.device.eco.EnergyModesStatsLogJobService;
+import com.android.tv.settings.startup.StartupScheduler;
+import com.android.tv.settings.util.SliceAvailabilityRegistry;
 
 /**
  * Application class that instantiates system sound player singleton so sound effects are only
  * loaded once and shared between components.
+ * <p>
+ * Only the work needed for the first frame is done in {@link #onCreate()}, the rest is scheduled
+ * by {@link #getStartupScheduler()} until after it is drawn.
  */
 public class TvSettingsApplication extends Application {
+    private static final String TASK_SLICE_AVAILABILITY = "slice_availability";
+    private static final String TASK_SYSTEM_SOUNDS = "system_sounds";
+    private static final String TASK_ENERGY_MODES_STATS_LOG = "energy_modes_stats_log";
+
+    private final StartupScheduler mStartupScheduler =
+            new StartupScheduler("TvSettingsApplication");
+    private boolean mSystemSoundsEnabled;
     private SystemSoundsPlayer mSystemSoundsPlayer;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        if (getResources().getBoolean(R.bool.config_enableSystemSounds)) {
-            mSystemSoundsPlayer = new SystemSoundsPlayer(this);
+        mSystemSoundsEnabled = getResources().getBoolean(R.bool.config_enableSystemSounds);
+        // Main fragment checks which slice providers exist to show its first frame.
+        mStartupScheduler.addTask(TASK_SLICE_AVAILABILITY,
+                StartupScheduler.PHASE_BEFORE_FIRST_FRAME, false,
+                () -> SliceAvailabilityRegistry.getInstance(this).start());
+        if (mSystemSoundsEnabled) {
+            // Observes the process lifecycle, so it is created on the main thread.
+            mStartupScheduler.addTask(TASK_SYSTEM_SOUNDS,
+                    StartupScheduler.PHASE_AFTER_FIRST_FRAME, false,
+                    () -> mSystemSoundsPlayer = new SystemSoundsPlayer(this));
         }
+        mStartupScheduler.addTask(TASK_ENERGY_MODES_STATS_LOG, StartupScheduler.PHASE_IDLE, true,
+                () -> EnergyModesStatsLogJobService.scheduleEnergyModesStatsLog(this));
+        mStartupScheduler.start();
+    }
 
-        EnergyModesStatsLogJobService.scheduleEnergyModesStatsLog(this);
+    /** Returns the scheduler of the initialization of the application. */
+    @NonNull
+    public StartupScheduler getStartupScheduler() {
+        return mStartupScheduler;
     }
 
     @Nullable
     public SystemSoundsPlayer getSystemSoundsPlayer() {
+        if (mSystemSoundsEnabled) {
+            // Created after the first frame, or now if a preference needs it sooner.
+            mStartupScheduler.runNow(TASK_SYSTEM_SOUNDS);
+        }
         return mSystemSoundsPlayer;
     }
 }
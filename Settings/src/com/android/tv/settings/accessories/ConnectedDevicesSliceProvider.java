@@ -41,12 +41,18 @@ import static com.android.tv.settings.accessories.ConnectedDevicesSliceUtils.get
 import android.app.PendingIntent;
 import android.app.admin.DevicePolicyManager;
 import android.app.tvsettings.TvSettingsEnums;
+import android.bluetooth.BluetoothA2dp;
+import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHidHost;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.ServiceConnection;
 import android.content.pm.ResolveInfo;
+import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
@@ -60,7 +66,9 @@ import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.IntegerRes;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.graphics.drawable.IconCompat;
 import com.android.tv.twopanelsettings.slices.compat.Slice;
 import com.android.tv.twopanelsettings.slices.compat.SliceProvider;
@@ -80,6 +88,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /** The SliceProvider for "connected devices" settings */
 public class ConnectedDevicesSliceProvider extends SliceProvider implements
@@ -89,11 +99,47 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     private static final boolean DEBUG = false;
     private static final boolean DISCONNECT_PREFERENCE_ENABLED = false;
     private static final int ACTIVE_AUDIO_OUTPUT_INTENT_REQUEST_CODE = 9;
+    private static final long MIN_UPDATE_INTERVAL_MS = 250;
     private final Map<Uri, Integer> mPinnedUris = new ArrayMap<>();
     private final Handler mHandler = new Handler(Looper.getMainLooper());
 
     private boolean mBtDeviceServiceBound;
     private BluetoothDevicesService.LocalBinder mBtDeviceServiceBinder;
+    private boolean mStateListenersRegistered;
+
+    private final Executor mWarmUpExecutor = Executors.newSingleThreadExecutor();
+    private final Object mDeviceStateLock = new Object();
+    // Device states loaded by onWarmUpSlice(), by address, each used by the next bind.
+    @GuardedBy("mDeviceStateLock")
+    private final Map<String, DeviceState> mWarmedDeviceStates = new ArrayMap<>();
+    // Incremented on every change so that warm-ups racing with it don't store stale states.
+    @GuardedBy("mDeviceStateLock")
+    private long mDeviceStateGeneration;
+
+    // Notifies the slices of the state changes which are not reported by
+    // BluetoothDevicesService, so that the cached slices are not served stale.
+    private final BroadcastReceiver mStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (DEBUG) {
+                Log.d(TAG, "State changed: " + intent);
+            }
+            clearWarmedDeviceStates();
+            notifySliceChanged(ConnectedDevicesSliceUtils.ROOT_SLICE_URI);
+        }
+    };
+
+    private final ContentObserver mSettingsObserver = new ContentObserver(mHandler) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            if (Settings.Global.getUriFor(BACKLIGHT_MODE_SETTING).equals(uri)) {
+                notifySliceChanged(ConnectedDevicesSliceUtils.BACKLIGHT_SLICE_URI);
+            } else {
+                notifySliceChanged(ConnectedDevicesSliceUtils.FIND_MY_REMOTE_SLICE_URI);
+            }
+            notifySliceChanged(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
+        }
+    };
 
     private final BluetoothDeviceProvider mLocalBluetoothDeviceProvider =
             new LocalBluetoothDeviceProvider() {
@@ -110,8 +156,7 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                 public void onServiceConnected(ComponentName className, IBinder service) {
                     mBtDeviceServiceBinder = (BluetoothDevicesService.LocalBinder) service;
                     mBtDeviceServiceBinder.addListener(ConnectedDevicesSliceProvider.this);
-                    getContext().getContentResolver()
-                            .notifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI, null);
+                    notifySliceChanged(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
                 }
 
                 @Override
@@ -150,6 +195,47 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         return true;
     }
 
+    @Override
+    public boolean isSliceCachingEnabled() {
+        // The main and preview panels often bind the same uri back to back. Every state read
+        // by these slices is followed by a notification, see registerStateListeners().
+        return true;
+    }
+
+    @Override
+    public long getMinUpdateIntervalMs(Uri sliceUri) {
+        // Bluetooth reports a burst of device updates while pairing and for battery levels.
+        return MIN_UPDATE_INTERVAL_MS;
+    }
+
+    @Override
+    public Executor getSliceWarmUpExecutor() {
+        return mWarmUpExecutor;
+    }
+
+    @Override
+    public void onWarmUpSlice(Uri sliceUri) {
+        // The device slices are linked from the general slice, so they get warmed up as soon as
+        // it is bound, before any of them is opened.
+        if (!ConnectedDevicesSliceUtils.isBluetoothDevicePath(sliceUri)) {
+            return;
+        }
+        String deviceAddr = ConnectedDevicesSliceUtils.getDeviceAddr(sliceUri);
+        if (deviceAddr == null) {
+            return;
+        }
+        long generation;
+        synchronized (mDeviceStateLock) {
+            generation = mDeviceStateGeneration;
+        }
+        DeviceState state = loadDeviceState(deviceAddr);
+        synchronized (mDeviceStateLock) {
+            if (generation == mDeviceStateGeneration) {
+                mWarmedDeviceStates.put(deviceAddr, state);
+            }
+        }
+    }
+
     @Override
     public PendingIntent onCreatePermissionRequest(Uri sliceUri, String callingPackage) {
         final Intent settingsIntent = new Intent(Settings.ACTION_SETTINGS);
@@ -183,6 +269,7 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         if (DEBUG) {
             Log.d(TAG, "onBindSlice: " + sliceUri);
         }
+        registerStateListeners();
         StrictMode.ThreadPolicy oldPolicy = StrictMode.getThreadPolicy();
         try {
             // Prevent StrictMode from throwing on access to shared preferences.
@@ -226,14 +313,96 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         });
     }
 
+    /**
+     * Listens to the changes of the state read by the slices, other than the devices reported by
+     * BluetoothDevicesService while it is bound. Done once, on the first bind.
+     */
+    private synchronized void registerStateListeners() {
+        if (mStateListenersRegistered) {
+            return;
+        }
+        mStateListenersRegistered = true;
+        Context context = getContext();
+        IntentFilter filter = new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(BluetoothDevice.ACTION_ACL_CONNECTED);
+        filter.addAction(BluetoothDevice.ACTION_ACL_DISCONNECTED);
+        filter.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
+        filter.addAction(BluetoothDevice.ACTION_ALIAS_CHANGED);
+        filter.addAction(BluetoothDevice.ACTION_NAME_CHANGED);
+        filter.addAction(BluetoothA2dp.ACTION_CONNECTION_STATE_CHANGED);
+        filter.addAction(BluetoothA2dp.ACTION_ACTIVE_DEVICE_CHANGED);
+        filter.addAction(BluetoothHidHost.ACTION_CONNECTION_STATE_CHANGED);
+        filter.addAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+        filter.addAction(DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+        context.registerReceiver(mStateReceiver, filter, /* broadcastPermission= */ null,
+                mHandler);
+        // The find my remote and backlight entries depend on the installed receivers, and the
+        // official remote entries on the installed slice providers.
+        IntentFilter packageFilter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiver(mStateReceiver, packageFilter,
+                /* broadcastPermission= */ null, mHandler);
+        context.getContentResolver().registerContentObserver(
+                Settings.Global.getUriFor(BACKLIGHT_MODE_SETTING),
+                /* notifyForDescendants= */ false, mSettingsObserver);
+        context.getContentResolver().registerContentObserver(
+                Settings.Global.getUriFor(FIND_MY_REMOTE_PHYSICAL_BUTTON_ENABLED_SETTING),
+                /* notifyForDescendants= */ false, mSettingsObserver);
+    }
+
     // BluetoothDeviceProvider.Listener implementation
     @Override
     public void onDeviceUpdated(BluetoothDevice device) {
-        getContext().getContentResolver()
-                .notifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI, null);
+        clearWarmedDeviceStates();
+        notifySliceChanged(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
         notifyDeviceSlice(device);
     }
 
+    /** The lookups of a device needed by its slice, which are done over IPC. */
+    @VisibleForTesting
+    static final class DeviceState {
+        final BluetoothDevice mDevice;
+        final CachedBluetoothDevice mCachedDevice;
+        final String mName;
+
+        DeviceState(BluetoothDevice device, CachedBluetoothDevice cachedDevice, String name) {
+            mDevice = device;
+            mCachedDevice = cachedDevice;
+            mName = name;
+        }
+    }
+
+    @VisibleForTesting
+    DeviceState loadDeviceState(String deviceAddr) {
+        BluetoothDevice device = BluetoothDevicesService.findDevice(deviceAddr);
+        CachedBluetoothDevice cachedDevice =
+                AccessoryUtils.getCachedBluetoothDevice(getContext(), device);
+        String deviceName = "";
+        if (device != null) {
+            deviceName = AccessoryUtils.getLocalName(device);
+        }
+        return new DeviceState(device, cachedDevice, deviceName);
+    }
+
+    /** Returns the state of a device warmed up since the last change, or loads it. */
+    private DeviceState getDeviceState(String deviceAddr) {
+        DeviceState state;
+        synchronized (mDeviceStateLock) {
+            state = mWarmedDeviceStates.remove(deviceAddr);
+        }
+        return state != null ? state : loadDeviceState(deviceAddr);
+    }
+
+    private void clearWarmedDeviceStates() {
+        synchronized (mDeviceStateLock) {
+            mDeviceStateGeneration++;
+            mWarmedDeviceStates.clear();
+        }
+    }
+
     // The initial slice in the Connected Device flow.
     private Slice createGeneralSlice(Uri sliceUri) {
         PreferenceSliceBuilder psb = new PreferenceSliceBuilder(getContext(), sliceUri);
@@ -254,13 +423,10 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     private Slice createBluetoothDeviceSlice(Uri sliceUri) {
         Context context = getContext();
         String deviceAddr = ConnectedDevicesSliceUtils.getDeviceAddr(sliceUri);
-        BluetoothDevice device = BluetoothDevicesService.findDevice(deviceAddr);
-        CachedBluetoothDevice cachedDevice =
-                AccessoryUtils.getCachedBluetoothDevice(getContext(), device);
-        String deviceName = "";
-        if (device != null) {
-            deviceName = AccessoryUtils.getLocalName(device);
-        }
+        DeviceState state = getDeviceState(deviceAddr);
+        BluetoothDevice device = state.mDevice;
+        CachedBluetoothDevice cachedDevice = state.mCachedDevice;
+        String deviceName = state.mName;
 
         PreferenceSliceBuilder psb = new PreferenceSliceBuilder(getContext(), sliceUri);
         psb.addScreenTitle(
@@ -660,8 +826,8 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         String addr = device.getAddress();
         mHandler.post(() -> {
             if (device != null) {
-                getContext().getContentResolver().notifyChange(
-                        ConnectedDevicesSliceUtils.getDeviceUri(addr, device.getAlias()), null);
+                notifySliceChanged(
+                        ConnectedDevicesSliceUtils.getDeviceUri(addr, device.getAlias()));
             }
         });
     }
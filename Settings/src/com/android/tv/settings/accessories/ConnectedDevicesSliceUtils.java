@@ -17,11 +17,11 @@
 package com.android.tv.settings.accessories;
 
 import android.bluetooth.BluetoothDevice;
-import android.content.ContentProviderClient;
 import android.content.Context;
 import android.net.Uri;
 import android.provider.Settings;
 
+import com.android.tv.settings.util.SliceAvailabilityRegistry;
 import com.android.tv.twopanelsettings.slices.SlicesConstants;
 
 /** Util class for {@ConnectedDevicesSliceProvider} */
@@ -35,6 +35,7 @@ public final class ConnectedDevicesSliceUtils {
     static final String FIND_MY_REMOTE_PATH = "find_my_remote";
     static final String BACKLIGHT_PATH = "backlight";
     static final String DIRECTION_BACK = "direction_back";
+    static final Uri ROOT_SLICE_URI = Uri.parse("content://" + AUTHORITY);
     public static final Uri GENERAL_SLICE_URI =
             Uri.parse("content://" + AUTHORITY + "/" + GENERAL_PATH);
     static final Uri BLUETOOTH_DEVICE_SLICE_URI =
@@ -87,17 +88,7 @@ public final class ConnectedDevicesSliceUtils {
 
     /** Check if slice provider exists. */
     static boolean isSliceProviderValid(Context context, String uri) {
-        if (uri == null) {
-            return false;
-        }
-        ContentProviderClient client =
-                context.getContentResolver().acquireContentProviderClient(Uri.parse(uri));
-        if (client != null) {
-            client.close();
-            return true;
-        } else {
-            return false;
-        }
+        return SliceAvailabilityRegistry.getInstance(context).isSliceProviderValid(uri);
     }
 
     static Uri getDeviceUri(String deviceAddr, String aliasName) {
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.startup;
+
+import android.annotation.IntDef;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the initialization tasks of a component in the order their dependencies require, each on
+ * the main thread or in the background, and no sooner than the phase of startup it belongs to, so
+ * that only the work needed to draw the first frame is done before it.
+ * <p>
+ * Tasks are added with {@link #addTask} and run once {@link #start()} is called and their phase
+ * is reached: tasks needed for the first frame right away, the others once
+ * {@link #onFirstFrame()} is called, or the main thread is idle after that. The time each task
+ * waited and took is kept for {@link #dump}.
+ */
+public final class StartupScheduler {
+    private static final String TAG = "StartupScheduler";
+    private static final boolean DEBUG = false;
+
+    /** Work needed to draw the first frame. Main thread tasks run within {@link #start()}. */
+    public static final int PHASE_BEFORE_FIRST_FRAME = 0;
+    /** Work needed soon after the first frame, e.g. to show more content. */
+    public static final int PHASE_AFTER_FIRST_FRAME = 1;
+    /** Work which can wait until the main thread is idle after the first frame. */
+    public static final int PHASE_IDLE = 2;
+
+    /** @hide */
+    @IntDef(prefix = "PHASE_", value = {PHASE_BEFORE_FIRST_FRAME, PHASE_AFTER_FIRST_FRAME,
+            PHASE_IDLE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Phase {}
+
+    /**
+     * Time after {@link #start()} after which the first frame is considered drawn, e.g. when the
+     * process was started for a receiver and nothing is drawn.
+     */
+    @VisibleForTesting
+    static final long FIRST_FRAME_TIMEOUT_MS = 5000;
+
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_QUEUED = 1;
+    private static final int STATE_DONE = 2;
+
+    private static final Object sLock = new Object();
+    @GuardedBy("sLock")
+    private static final Map<String, TaskTiming> sTimings = new ArrayMap<>();
+
+    private final String mName;
+    private final Handler mMainHandler;
+    private final Executor mBackgroundExecutor;
+    private final Runnable mFirstFrameTimeout = this::onFirstFrame;
+    // Accessed on the main thread only.
+    private final ArrayMap<String, Task> mTasks = new ArrayMap<>();
+    private int mPhase = -1;
+    private long mStartMs;
+    private boolean mCancelled;
+
+    /**
+     * @param name name of the component the tasks initialize, used in the timings.
+     */
+    public StartupScheduler(@NonNull String name) {
+        this(name, new Handler(Looper.getMainLooper()), ThreadUtils::postOnBackgroundThread);
+    }
+
+    @VisibleForTesting
+    StartupScheduler(@NonNull String name, @NonNull Handler mainHandler,
+            @NonNull Executor backgroundExecutor) {
+        mName = name;
+        mMainHandler = mainHandler;
+        mBackgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Adds a task, which runs once the scheduler reaches {@code phase} and the tasks named by
+     * {@code dependencies} are done. Dependencies must not form cycles.
+     *
+     * @param background whether the task runs on a background thread, or on the main thread.
+     */
+    @MainThread
+    @NonNull
+    public StartupScheduler addTask(@NonNull String name, @Phase int phase, boolean background,
+            @NonNull Runnable work, @NonNull String... dependencies) {
+        if (mTasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate task " + name);
+        }
+        mTasks.put(name, new Task(name, phase, background, work, dependencies));
+        if (mPhase >= 0) {
+            scheduleReadyTasks(false);
+        }
+        return this;
+    }
+
+    /** Starts running the tasks, beginning with the main thread tasks of the first frame. */
+    @MainThread
+    public void start() {
+        if (mPhase >= 0) {
+            return;
+        }
+        for (Task task : mTasks.values()) {
+            for (String dependency : task.mDependencies) {
+                if (!mTasks.containsKey(dependency)) {
+                    throw new IllegalStateException(
+                            "Unknown dependency " + dependency + " of " + task.mName);
+                }
+            }
+        }
+        mStartMs = SystemClock.uptimeMillis();
+        mPhase = PHASE_BEFORE_FIRST_FRAME;
+        mMainHandler.postDelayed(mFirstFrameTimeout, FIRST_FRAME_TIMEOUT_MS);
+        scheduleReadyTasks(true);
+    }
+
+    /** Calls {@link #onFirstFrame()} once the first frame of {@code view}'s window is drawn. */
+    @MainThread
+    public void waitForFirstFrame(@NonNull View view) {
+        if (mPhase >= PHASE_AFTER_FIRST_FRAME || mCancelled) {
+            return;
+        }
+        view.getViewTreeObserver().registerFrameCommitCallback(
+                () -> mMainHandler.post(this::onFirstFrame));
+    }
+
+    /**
+     * Lets the tasks of {@link #PHASE_AFTER_FIRST_FRAME} run, and those of {@link #PHASE_IDLE}
+     * once the main thread is idle.
+     */
+    @MainThread
+    public void onFirstFrame() {
+        if (mPhase != PHASE_BEFORE_FIRST_FRAME || mCancelled) {
+            return;
+        }
+        mMainHandler.removeCallbacks(mFirstFrameTimeout);
+        mPhase = PHASE_AFTER_FIRST_FRAME;
+        if (DEBUG) {
+            Log.d(TAG, mName + " first frame after " + (SystemClock.uptimeMillis() - mStartMs)
+                    + "ms");
+        }
+        scheduleReadyTasks(false);
+        Looper.myQueue().addIdleHandler(() -> {
+            if (!mCancelled) {
+                mPhase = PHASE_IDLE;
+                scheduleReadyTasks(false);
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Runs the task {@code name} and its dependencies now, on the calling main thread, unless
+     * they already ran, e.g. when the result of a deferred task is needed early. The task and its
+     * dependencies must not be running in the background.
+     */
+    @MainThread
+    public void runNow(@NonNull String name) {
+        Task task = mTasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task " + name);
+        }
+        if (task.mState == STATE_DONE) {
+            return;
+        }
+        if (task.mState == STATE_QUEUED && task.mBackground) {
+            throw new IllegalStateException(name + " is running in the background");
+        }
+        for (String dependency : task.mDependencies) {
+            runNow(dependency);
+        }
+        task.mState = STATE_QUEUED;
+        run(task);
+        onTaskDone(task);
+    }
+
+    /** Drops the tasks which have not started yet, e.g. when the component is destroyed. */
+    @MainThread
+    public void cancel() {
+        mCancelled = true;
+        mMainHandler.removeCallbacks(mFirstFrameTimeout);
+    }
+
+    /** Queues the pending tasks whose phase is reached and dependencies are done. */
+    private void scheduleReadyTasks(boolean runMainTasksInline) {
+        boolean ranInline = true;
+        while (ranInline && !mCancelled) {
+            ranInline = false;
+            // Indexed, since tasks run inline may add tasks.
+            for (int i = 0; i < mTasks.size(); i++) {
+                Task task = mTasks.valueAt(i);
+                if (task.mState != STATE_PENDING || task.mPhase > mPhase
+                        || !areDependenciesDone(task)) {
+                    continue;
+                }
+                task.mState = STATE_QUEUED;
+                task.mQueuedMs = SystemClock.uptimeMillis();
+                if (task.mBackground) {
+                    mBackgroundExecutor.execute(() -> {
+                        run(task);
+                        mMainHandler.post(() -> onTaskDone(task));
+                    });
+                } else if (runMainTasksInline) {
+                    run(task);
+                    task.mState = STATE_DONE;
+                    ranInline = true;
+                } else {
+                    mMainHandler.post(() -> {
+                        // Skip tasks cancelled, or already run by runNow().
+                        if (!mCancelled && task.mState == STATE_QUEUED) {
+                            run(task);
+                            onTaskDone(task);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private boolean areDependenciesDone(Task task) {
+        for (String dependency : task.mDependencies) {
+            if (mTasks.get(dependency).mState != STATE_DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void onTaskDone(Task task) {
+        task.mState = STATE_DONE;
+        scheduleReadyTasks(false);
+    }
+
+    private void run(Task task) {
+        long startMs = SystemClock.uptimeMillis();
+        task.mWork.run();
+        long durationMs = SystemClock.uptimeMillis() - startMs;
+        long waitMs = task.mQueuedMs > 0 ? startMs - task.mQueuedMs : 0;
+        String thread = Thread.currentThread().getName();
+        if (DEBUG) {
+            Log.d(TAG, mName + "/" + task.mName + " took " + durationMs + "ms on " + thread
+                    + " at +" + (startMs - mStartMs) + "ms, waited " + waitMs + "ms");
+        }
+        synchronized (sLock) {
+            String key = mName + "/" + task.mName;
+            TaskTiming timing = sTimings.get(key);
+            if (timing == null) {
+                timing = new TaskTiming();
+                sTimings.put(key, timing);
+            }
+            timing.mRuns++;
+            timing.mPhase = task.mPhase;
+            timing.mThread = thread;
+            timing.mLastStartMs = startMs - mStartMs;
+            timing.mLastWaitMs = waitMs;
+            timing.mLastDurationMs = durationMs;
+            timing.mTotalDurationMs += durationMs;
+        }
+    }
+
+    /** Prints the timings of the tasks run by all schedulers. */
+    public static void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        ArrayMap<String, TaskTiming> timings = new ArrayMap<>();
+        synchronized (sLock) {
+            for (Map.Entry<String, TaskTiming> entry : sTimings.entrySet()) {
+                timings.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        writer.print(prefix);
+        writer.println("StartupScheduler (" + timings.size() + " tasks):");
+        for (int i = 0; i < timings.size(); i++) {
+            TaskTiming timing = timings.valueAt(i);
+            writer.print(prefix);
+            writer.println("  " + timings.keyAt(i) + " phase=" + timing.mPhase
+                    + " thread=" + timing.mThread
+                    + " runs=" + timing.mRuns
+                    + " lastStartMs=+" + timing.mLastStartMs
+                    + " lastWaitMs=" + timing.mLastWaitMs
+                    + " lastDurationMs=" + timing.mLastDurationMs
+                    + " totalDurationMs=" + timing.mTotalDurationMs);
+        }
+    }
+
+    private static final class Task {
+        final String mName;
+        final int mPhase;
+        final boolean mBackground;
+        final Runnable mWork;
+        final String[] mDependencies;
+        int mState = STATE_PENDING;
+        long mQueuedMs;
+
+        Task(String name, int phase, boolean background, Runnable work, String[] dependencies) {
+            mName = name;
+            mPhase = phase;
+            mBackground = background;
+            mWork = work;
+            mDependencies = dependencies;
+        }
+    }
+
+    private static final class TaskTiming {
+        int mRuns;
+        int mPhase;
+        String mThread;
+        long mLastStartMs;
+        long mLastWaitMs;
+        long mLastDurationMs;
+        long mTotalDurationMs;
+
+        TaskTiming copy() {
+            TaskTiming copy = new TaskTiming();
+            copy.mRuns = mRuns;
+            copy.mPhase = mPhase;
+            copy.mThread = mThread;
+            copy.mLastStartMs = mLastStartMs;
+            copy.mLastWaitMs = mLastWaitMs;
+            copy.mLastDurationMs = mLastDurationMs;
+            copy.mTotalDurationMs = mTotalDurationMs;
+            return copy;
+        }
+    }
+}
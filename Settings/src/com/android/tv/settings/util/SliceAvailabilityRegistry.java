@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.util;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ProviderInfo;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.tv.twopanelsettings.slices.base.SliceManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide cache of which slice providers exist and which settings slices they enable, so
+ * that preferences can be shown or hidden on the main thread without IPC.
+ * <p>
+ * The authorities of all content providers are scanned in the background from {@link #start()},
+ * and rescanned on package changes. Enabled slices are listed per top level slice uri the first
+ * time they are asked for, or from {@link #start()} for the known top level uris and the roots of
+ * the slices shown on the main screen, and refreshed in the background whenever the provider
+ * notifies a change under that uri. Answers requested before the data is available are negative
+ * and queue the lookup in the background, unless the caller is allowed to block. {@link Listener}s
+ * are told when the answers change so that they can ask again.
+ */
+public final class SliceAvailabilityRegistry {
+    private static final String TAG = "SliceAvailability";
+    private static final boolean DEBUG = false;
+    // Names of the string resources holding the top level slice uris looked up at startup.
+    private static final String[] KNOWN_TOP_LEVEL_URIS = {"top_level_settings_slice_uri"};
+    // Names of the string resources holding the slice uris shown on the main screen, whose roots
+    // are looked up at startup.
+    private static final String[] KNOWN_SLICE_URIS = {
+            "channels_and_inputs_slice_uri",
+            "channels_and_inputs_fallback_slice_uri",
+            "help_and_feedback_slice_uri",
+            "display_and_sound_slice_uri",
+    };
+
+    /** Listener of the changes of the answers of the registry. */
+    public interface Listener {
+        /** Called on the main thread when the availability of some slices changed. */
+        void onSliceAvailabilityChanged();
+    }
+
+    private static SliceAvailabilityRegistry sInstance;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mExecutor = Executors.newSingleThreadExecutor();
+    private boolean mStarted;
+
+    // Authorities of all the content providers, or null until they are scanned.
+    private volatile Set<String> mAuthorities;
+    // Authorities resolved one at a time before the scan completed.
+    private final ConcurrentHashMap<String, Boolean> mResolvedAuthorities =
+            new ConcurrentHashMap<>();
+    // Top level slice uris by the name of the string resource holding them.
+    private final ConcurrentHashMap<String, Uri> mTopLevelUris = new ConcurrentHashMap<>();
+    // Enabled descendants by top level slice uri. Empty if the provider does not list them.
+    private final ConcurrentHashMap<Uri, Set<String>> mEnabledSlices = new ConcurrentHashMap<>();
+    // Whether slices of providers which don't list their descendants could be bound.
+    private final ConcurrentHashMap<String, Boolean> mBindableSlices = new ConcurrentHashMap<>();
+    // Top level slice uris observed for changes, and those with a refresh queued.
+    private final Set<Uri> mObservedUris = ConcurrentHashMap.newKeySet();
+    private final Set<Uri> mPendingRefreshes = ConcurrentHashMap.newKeySet();
+    // Only accessed on the main thread.
+    private final ArraySet<Listener> mListeners = new ArraySet<>();
+    private final Runnable mDispatchChange = () -> {
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.valueAt(i).onSliceAvailabilityChanged();
+        }
+    };
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (DEBUG) {
+                Log.d(TAG, "Package changed: " + intent);
+            }
+            mExecutor.execute(() -> {
+                scanAuthorities();
+                for (Uri topLevelUri : mEnabledSlices.keySet()) {
+                    refreshEnabledSlices(topLevelUri);
+                }
+            });
+        }
+    };
+
+    private final ContentObserver mSliceObserver = new ContentObserver(mMainHandler) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            if (uri == null) {
+                return;
+            }
+            for (Uri topLevelUri : mObservedUris) {
+                if (TextUtils.equals(topLevelUri.getAuthority(), uri.getAuthority())) {
+                    queueRefresh(topLevelUri);
+                }
+            }
+        }
+    };
+
+    /** Returns the instance of the registry. */
+    public static synchronized SliceAvailabilityRegistry getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new SliceAvailabilityRegistry(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    SliceAvailabilityRegistry(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Starts populating the registry in the background and listening to package changes. Meant
+     * to be called once at application startup.
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        mContext.registerReceiver(mPackageReceiver, filter);
+        mExecutor.execute(() -> {
+            scanAuthorities();
+            for (String name : KNOWN_TOP_LEVEL_URIS) {
+                Uri topLevelUri = getTopLevelUri(/* uri= */ null, name);
+                if (topLevelUri != null && isSliceProviderValid(topLevelUri.toString())) {
+                    observe(topLevelUri);
+                    refreshEnabledSlices(topLevelUri);
+                }
+            }
+            for (String name : KNOWN_SLICE_URIS) {
+                String uri = ResourcesUtil.getString(mContext, name);
+                if (!TextUtils.isEmpty(uri) && isSliceProviderValid(uri)) {
+                    isSettingsSliceEnabled(uri, /* topLevelSettingsSliceUri= */ null,
+                            /* mayBlock= */ true);
+                }
+            }
+        });
+    }
+
+    /** Adds a listener told when the answers of the registry change. */
+    @MainThread
+    public void addListener(@NonNull Listener listener) {
+        mListeners.add(listener);
+    }
+
+    /** Removes a listener added by {@link #addListener(Listener)}. */
+    @MainThread
+    public void removeListener(@NonNull Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Returns whether a provider serves the authority of {@code stringUri}.
+     */
+    public boolean isSliceProviderValid(@Nullable String stringUri) {
+        if (TextUtils.isEmpty(stringUri)) {
+            return false;
+        }
+        String authority = Uri.parse(stringUri).getAuthority();
+        if (authority == null) {
+            return false;
+        }
+        Set<String> authorities = mAuthorities;
+        boolean valid;
+        if (authorities != null) {
+            valid = authorities.contains(authority);
+        } else {
+            Boolean resolved = mResolvedAuthorities.get(authority);
+            if (resolved == null) {
+                resolved = mContext.getPackageManager()
+                        .resolveContentProvider(authority, /* flags= */ 0) != null;
+                mResolvedAuthorities.put(authority, resolved);
+            }
+            valid = resolved;
+        }
+        if (!valid && DEBUG) {
+            Log.d(TAG, "Slice Provider not found for: " + stringUri);
+        }
+        return valid;
+    }
+
+    /**
+     * Returns whether the settings slice {@code uri} is enabled by its provider, without IPC. If
+     * the slices of the provider are not known yet, they are looked up in the background, false is
+     * returned meanwhile and the {@link Listener}s are told once they are known.
+     *
+     * @param topLevelSettingsSliceUri name of the string resource holding the top level settings
+     *                                 slice uri, if null the root of {@code uri} is used.
+     */
+    public boolean isSettingsSliceEnabled(@Nullable String uri,
+            @Nullable String topLevelSettingsSliceUri) {
+        return isSettingsSliceEnabled(uri, topLevelSettingsSliceUri, /* mayBlock= */ false);
+    }
+
+    /**
+     * Like {@link #isSettingsSliceEnabled(String, String)}, but looks up the slices of the
+     * provider on the calling thread if they are not known yet.
+     */
+    @WorkerThread
+    public boolean isSettingsSliceEnabledBlocking(@Nullable String uri,
+            @Nullable String topLevelSettingsSliceUri) {
+        return isSettingsSliceEnabled(uri, topLevelSettingsSliceUri, /* mayBlock= */ true);
+    }
+
+    private boolean isSettingsSliceEnabled(@Nullable String uri,
+            @Nullable String topLevelSettingsSliceUri, boolean mayBlock) {
+        if (uri == null) {
+            return false;
+        }
+        Uri topLevelUri = getTopLevelUri(uri, topLevelSettingsSliceUri);
+        if (topLevelUri == null) {
+            return false;
+        }
+        Set<String> enabledSlices = mEnabledSlices.get(topLevelUri);
+        if (enabledSlices == null) {
+            observe(topLevelUri);
+            if (!mayBlock) {
+                queueRefresh(topLevelUri);
+                return false;
+            }
+            enabledSlices = refreshEnabledSlices(topLevelUri);
+        }
+        if (!enabledSlices.isEmpty()) {
+            return enabledSlices.contains(uri);
+        }
+        // The provider likely does not support listing descendants.
+        Boolean bindable = mBindableSlices.get(uri);
+        if (bindable == null) {
+            if (!mayBlock) {
+                mExecutor.execute(() -> {
+                    if (!mBindableSlices.containsKey(uri)) {
+                        putBindable(uri, isBindable(uri));
+                    }
+                });
+                return false;
+            }
+            bindable = isBindable(uri);
+            putBindable(uri, bindable);
+        }
+        return bindable;
+    }
+
+    private void putBindable(String uri, boolean bindable) {
+        Boolean previous = mBindableSlices.put(uri, bindable);
+        if (previous == null || previous != bindable) {
+            dispatchChange();
+        }
+    }
+
+    private void dispatchChange() {
+        // Coalesces the changes made before the listeners get to run.
+        mMainHandler.removeCallbacks(mDispatchChange);
+        mMainHandler.post(mDispatchChange);
+    }
+
+    private boolean isBindable(String uri) {
+        return SliceManager.from(mContext).bindSlice(Uri.parse(uri), Collections.emptySet())
+                != null;
+    }
+
+    private void observe(Uri topLevelUri) {
+        if (mObservedUris.add(topLevelUri)) {
+            mContext.getContentResolver().registerContentObserver(
+                    topLevelUri, /* notifyForDescendants= */ true, mSliceObserver);
+        }
+    }
+
+    private void queueRefresh(Uri topLevelUri) {
+        // Coalesces the refreshes queued by lookups and bursts of notifications.
+        if (mPendingRefreshes.add(topLevelUri)) {
+            mExecutor.execute(() -> {
+                mPendingRefreshes.remove(topLevelUri);
+                refreshEnabledSlices(topLevelUri);
+            });
+        }
+    }
+
+    @Nullable
+    private Uri getTopLevelUri(@Nullable String uri, @Nullable String topLevelSettingsSliceUri) {
+        if (topLevelSettingsSliceUri == null) {
+            if (uri == null) {
+                return null;
+            }
+            return Uri.parse(uri).buildUpon().path("/").build();
+        }
+        Uri topLevelUri = mTopLevelUris.get(topLevelSettingsSliceUri);
+        if (topLevelUri == null) {
+            String value = ResourcesUtil.getString(mContext, topLevelSettingsSliceUri);
+            if (value == null) {
+                return null;
+            }
+            topLevelUri = Uri.parse(value);
+            mTopLevelUris.put(topLevelSettingsSliceUri, topLevelUri);
+        }
+        return topLevelUri;
+    }
+
+    private Set<String> refreshEnabledSlices(Uri topLevelUri) {
+        Collection<Uri> descendants;
+        try {
+            descendants = SliceManager.from(mContext).getSliceDescendants(topLevelUri);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to list slices of " + topLevelUri, e);
+            descendants = Collections.emptyList();
+        }
+        ArraySet<String> enabledSlices = new ArraySet<>(descendants.size());
+        for (Uri sliceUri : descendants) {
+            enabledSlices.add(sliceUri.toString());
+        }
+        if (DEBUG) {
+            Log.d(TAG, "Enabled slices under " + topLevelUri + ": " + enabledSlices);
+        }
+        Set<String> result = Collections.unmodifiableSet(enabledSlices);
+        Set<String> previous = mEnabledSlices.put(topLevelUri, result);
+        if (!result.equals(previous)) {
+            dispatchChange();
+        }
+        if (result.isEmpty()) {
+            // Keep answering from the previous results until they are checked again.
+            String prefix = topLevelUri.getScheme() + "://" + topLevelUri.getAuthority();
+            for (String uri : mBindableSlices.keySet()) {
+                if (uri.startsWith(prefix)) {
+                    putBindable(uri, isBindable(uri));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void scanAuthorities() {
+        List<ProviderInfo> providers;
+        try {
+            providers = mContext.getPackageManager().queryContentProviders(
+                    /* processName= */ null, /* uid= */ 0, /* flags= */ 0);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to list content providers", e);
+            return;
+        }
+        ArraySet<String> authorities = new ArraySet<>();
+        if (providers != null) {
+            for (ProviderInfo provider : providers) {
+                if (provider.authority != null) {
+                    Collections.addAll(authorities, provider.authority.split(";"));
+                }
+            }
+        }
+        mAuthorities = Collections.unmodifiableSet(authorities);
+        mResolvedAuthorities.clear();
+    }
+}
@@ -17,10 +17,6 @@
 package com.android.tv.settings.util;
 
 import android.content.Context;
-import android.content.pm.ProviderInfo;
-import android.net.Uri;
-import android.text.TextUtils;
-import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.preference.Preference;
@@ -39,18 +35,7 @@ public final class SliceUtils {
      * Check if slice provider exists.
      */
     public static boolean isSliceProviderValid(Context context, String stringUri) {
-        if (TextUtils.isEmpty(stringUri)) {
-            return false;
-        }
-        Uri uri = Uri.parse(stringUri);
-        ProviderInfo providerInfo =
-                context.getPackageManager()
-                        .resolveContentProvider(uri.getAuthority(), /* flags= */ 0);
-        if (providerInfo == null) {
-            Log.i(TAG, "Slice Provider not found for: " + stringUri);
-            return false;
-        }
-        return true;
+        return SliceAvailabilityRegistry.getInstance(context).isSliceProviderValid(stringUri);
     }
 
     public static boolean maybeUseSlice(@Nullable Preference preference,
@@ -15,10 +15,7 @@
  */
 package com.android.tv.settings.util
 
-import com.android.tv.twopanelsettings.slices.base.SliceManager
 import android.content.Context
-import android.net.Uri
-import android.util.Log
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 
@@ -41,17 +38,16 @@ object SliceUtilsKt {
         if (uri == null) {
             return false
         }
-        val sliceManager = SliceManager.from(context)
         return withContext(Dispatchers.IO) {
-            return@withContext isSettingsSliceEnabledInternal(
-                context, sliceManager,
-                uri, topLevelSettingsSliceUri
-            )
+            return@withContext SliceAvailabilityRegistry.getInstance(context)
+                .isSettingsSliceEnabledBlocking(uri, topLevelSettingsSliceUri)
         }
     }
 
     /**
-     * Checks if the slice is available in the background if needed
+     * Checks if the slice is available without blocking, answering false until
+     * [SliceAvailabilityRegistry] knows the slices of the provider. Its listeners are told once
+     * the answer is known.
      *
      * @param context                  Current context of the app
      * @param uri                      Settings slice uri
@@ -67,30 +63,7 @@ object SliceUtilsKt {
         if (uri == null) {
             return false
         }
-        val sliceManager = SliceManager.from(context)
-        return isSettingsSliceEnabledInternal(context, sliceManager, uri, topLevelSettingsSliceUri)
-    }
-
-    private fun isSettingsSliceEnabledInternal(
-        context: Context, sliceManager: SliceManager,
-        uri: String, topLevelSettingsSliceUri: String?
-    ): Boolean {
-        val topLevelSettingsSlice = if (topLevelSettingsSliceUri == null) {
-            Uri.parse(uri).buildUpon().path("/").build()
-        } else {
-            Uri.parse(ResourcesUtil.getString(context, topLevelSettingsSliceUri))
-        }
-        val enabledSlicesUri = sliceManager.getSliceDescendants(topLevelSettingsSlice)
-        if (enabledSlicesUri.isEmpty()) {
-            // SliceProvider likely does not support listing descendants.
-            return sliceManager.bindSlice(Uri.parse(uri), setOf()) != null
-        }
-        for (sliceUri in enabledSlicesUri) {
-            Log.i(TAG, "Enabled slice: $sliceUri")
-            if (sliceUri.toString() == uri) {
-                return true
-            }
-        }
-        return false
+        return SliceAvailabilityRegistry.getInstance(context)
+            .isSettingsSliceEnabled(uri, topLevelSettingsSliceUri)
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.robolectric.Shadows.shadowOf;
+
+import androidx.lifecycle.Lifecycle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SuggestionQuickSettingPrefsContainerTest {
+
+    @Spy
+    private MainFragment mMainFragment;
+
+    private SuggestionQuickSettingPrefsContainer mContainer;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(RuntimeEnvironment.application).when(mMainFragment).getContext();
+        mContainer = new SuggestionQuickSettingPrefsContainer(mMainFragment);
+    }
+
+    @Test
+    public void firstLaunch_requestsSuggestionsOnStart() {
+        // As done by MainFragment.onCreate().
+        mContainer.onCreate();
+
+        mMainFragment.getSettingsLifecycle().handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        assertThat(shadowOf(RuntimeEnvironment.application).getBoundServiceConnections())
+                .hasSize(1);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.bluetooth.BluetoothAdapter;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConnectedDevicesSliceProviderTest {
+    private static final String DEVICE_ADDR = "00:11:22:33:44:55";
+    private static final Uri DEVICE_SLICE_URI =
+            ConnectedDevicesSliceUtils.getDeviceUri(DEVICE_ADDR, "Remote");
+
+    private ConnectedDevicesSliceProvider mProvider;
+    private ConnectedDevicesSliceProvider.DeviceState mDeviceState;
+
+    @Before
+    public void setUp() {
+        mProvider = spy(Robolectric.setupContentProvider(ConnectedDevicesSliceProvider.class,
+                ConnectedDevicesSliceUtils.AUTHORITY));
+        mDeviceState = new ConnectedDevicesSliceProvider.DeviceState(
+                /* device= */ null, /* cachedDevice= */ null, "Remote");
+        doReturn(mDeviceState).when(mProvider).loadDeviceState(DEVICE_ADDR);
+    }
+
+    @Test
+    public void bindAfterWarmUp_reusesWarmedDeviceState() {
+        // As done on the warm-up executor when the slice gets pinned.
+        mProvider.onWarmUpSlice(DEVICE_SLICE_URI);
+
+        assertThat(mProvider.onBindSlice(DEVICE_SLICE_URI)).isNotNull();
+
+        verify(mProvider, times(1)).loadDeviceState(DEVICE_ADDR);
+    }
+
+    @Test
+    public void bindAfterDeviceUpdate_reloadsDeviceState() {
+        mProvider.onWarmUpSlice(DEVICE_SLICE_URI);
+
+        mProvider.onDeviceUpdated(
+                BluetoothAdapter.getDefaultAdapter().getRemoteDevice(DEVICE_ADDR));
+        mProvider.onBindSlice(DEVICE_SLICE_URI);
+
+        verify(mProvider, times(2)).loadDeviceState(DEVICE_ADDR);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.startup;
+
+import static com.android.tv.settings.startup.StartupScheduler.PHASE_AFTER_FIRST_FRAME;
+import static com.android.tv.settings.startup.StartupScheduler.PHASE_BEFORE_FIRST_FRAME;
+import static com.android.tv.settings.startup.StartupScheduler.PHASE_IDLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Tests for {@link StartupScheduler}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StartupSchedulerTest {
+    private final List<String> mRan = new ArrayList<>();
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+    private StartupScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        Executor background = mBackgroundTasks::add;
+        mScheduler = new StartupScheduler("test", new Handler(Looper.getMainLooper()),
+                background);
+    }
+
+    @Test
+    public void start_runsOnlyFirstFrameMainTasksInline() {
+        mScheduler.addTask("critical", PHASE_BEFORE_FIRST_FRAME, false, record("critical"))
+                .addTask("later", PHASE_AFTER_FIRST_FRAME, false, record("later"))
+                .addTask("idle", PHASE_IDLE, false, record("idle"));
+
+        mScheduler.start();
+        assertThat(mRan).containsExactly("critical");
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertThat(mRan).containsExactly("critical");
+    }
+
+    @Test
+    public void onFirstFrame_runsLaterPhasesInOrder() {
+        mScheduler.addTask("idle", PHASE_IDLE, false, record("idle"))
+                .addTask("later", PHASE_AFTER_FIRST_FRAME, false, record("later"));
+        mScheduler.start();
+
+        mScheduler.onFirstFrame();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mRan).containsExactly("later", "idle").inOrder();
+    }
+
+    @Test
+    public void dependencies_waitForBackgroundTask() {
+        mScheduler.addTask("dependent", PHASE_BEFORE_FIRST_FRAME, false, record("dependent"),
+                "background")
+                .addTask("background", PHASE_BEFORE_FIRST_FRAME, true, record("background"));
+
+        mScheduler.start();
+        assertThat(mRan).isEmpty();
+        assertThat(mBackgroundTasks).hasSize(1);
+
+        mBackgroundTasks.remove(0).run();
+        assertThat(mRan).containsExactly("background");
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mRan).containsExactly("background", "dependent").inOrder();
+    }
+
+    @Test
+    public void runNow_runsDeferredTaskOnce() {
+        mScheduler.addTask("later", PHASE_AFTER_FIRST_FRAME, false, record("later"));
+        mScheduler.start();
+
+        mScheduler.runNow("later");
+        assertThat(mRan).containsExactly("later");
+
+        mScheduler.onFirstFrame();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertThat(mRan).containsExactly("later");
+    }
+
+    @Test
+    public void noFirstFrame_laterPhasesRunAfterTimeout() {
+        mScheduler.addTask("later", PHASE_AFTER_FIRST_FRAME, false, record("later"));
+        mScheduler.start();
+
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(StartupScheduler.FIRST_FRAME_TIMEOUT_MS));
+
+        assertThat(mRan).containsExactly("later");
+    }
+
+    @Test
+    public void cancel_dropsPendingTasks() {
+        mScheduler.addTask("later", PHASE_AFTER_FIRST_FRAME, false, record("later"));
+        mScheduler.start();
+        mScheduler.onFirstFrame();
+
+        mScheduler.cancel();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mRan).isEmpty();
+    }
+
+    private Runnable record(String name) {
+        return () -> mRan.add(name);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.KeyEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+/**
+ * Tests for {@link FastScrollController}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FastScrollControllerTest {
+    private static final long KEY_REPEAT_MS = 50;
+    private static final int REPEAT_COUNT = 200;
+
+    private FastScrollController mController;
+    private int mEndedCount;
+
+    @Before
+    public void setUp() {
+        mController = new FastScrollController(new Handler(Looper.getMainLooper()),
+                () -> mEndedCount++);
+    }
+
+    @Test
+    public void heldKey_endsAfterRelease() {
+        long downTime = SystemClock.uptimeMillis();
+        pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, 0);
+        assertThat(mController.isActive()).isFalse();
+        for (int i = 1; i <= REPEAT_COUNT; i++) {
+            idleFor(KEY_REPEAT_MS);
+            pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, i);
+            assertThat(mController.isActive()).isTrue();
+        }
+
+        mController.onKeyEvent(keyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_DPAD_DOWN,
+                downTime, 0));
+        assertThat(mEndedCount).isEqualTo(0);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mController.isActive()).isFalse();
+        assertThat(mEndedCount).isEqualTo(1);
+    }
+
+    @Test
+    public void separatePresses_neverStartFastScroll() {
+        for (int i = 0; i < REPEAT_COUNT; i++) {
+            long downTime = SystemClock.uptimeMillis();
+            pressKey(KeyEvent.KEYCODE_DPAD_UP, downTime, 0);
+            assertThat(mController.isActive()).isFalse();
+            mController.onKeyEvent(keyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_DPAD_UP,
+                    downTime, 0));
+            idleFor(KEY_REPEAT_MS);
+        }
+
+        assertThat(mEndedCount).isEqualTo(0);
+    }
+
+    @Test
+    public void lostRelease_endsAfterTimeout() {
+        long downTime = SystemClock.uptimeMillis();
+        for (int i = 0; i <= REPEAT_COUNT; i++) {
+            pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, i);
+            idleFor(KEY_REPEAT_MS);
+        }
+        assertThat(mController.isActive()).isTrue();
+
+        idleFor(FastScrollController.REPEAT_TIMEOUT_MS);
+
+        assertThat(mController.isActive()).isFalse();
+        assertThat(mEndedCount).isEqualTo(1);
+    }
+
+    @Test
+    public void horizontalKeys_ignored() {
+        long downTime = SystemClock.uptimeMillis();
+        for (int i = 0; i <= REPEAT_COUNT; i++) {
+            mController.onKeyEvent(keyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DPAD_RIGHT,
+                    downTime, i));
+        }
+
+        assertThat(mController.isActive()).isFalse();
+    }
+
+    @Test
+    public void cancel_endsWithoutCallback() {
+        long downTime = SystemClock.uptimeMillis();
+        pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, 0);
+        pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, 1);
+
+        assertThat(mController.cancel()).isTrue();
+        idleFor(FastScrollController.REPEAT_TIMEOUT_MS);
+
+        assertThat(mController.isActive()).isFalse();
+        assertThat(mEndedCount).isEqualTo(0);
+    }
+
+    private void pressKey(int keyCode, long downTime, int repeatCount) {
+        mController.onKeyEvent(keyEvent(KeyEvent.ACTION_DOWN, keyCode, downTime, repeatCount));
+    }
+
+    private static KeyEvent keyEvent(int action, int keyCode, long downTime, int repeatCount) {
+        return new KeyEvent(downTime, SystemClock.uptimeMillis(), action, keyCode, repeatCount);
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ComponentCallbacks2;
+import android.os.Looper;
+
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.preference.Preference;
+
+import com.android.tv.twopanelsettings.TwoPanelSettingsFragmentTest.TestPreferenceFragment;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.time.Duration;
+
+/**
+ * Tests for the panels retained by {@link TwoPanelSettingsFragment} when navigating forward.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RetainedPanelsTest {
+    private static final int[] FRAME_IDS = {R.id.frame1, R.id.frame2, R.id.frame3, R.id.frame4,
+            R.id.frame5};
+    private static final int DEPTH = 4;
+    // Long enough for the panel moves and their delayed removals.
+    private static final long NAVIGATION_MS = 1000;
+
+    private TestFragment mFragment;
+
+    @Before
+    public void setUp() {
+        mFragment = FragmentController.of(new TestFragment())
+                .create()
+                .start()
+                .resume()
+                .visible()
+                .get();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @Test
+    public void navigateBackAfterTrimMemory_resumesEveryMainPanel() {
+        for (int i = 0; i < DEPTH; i++) {
+            Preference first = ((TestPreferenceFragment) getPanel(i))
+                    .findPreference(TestPreferenceFragment.KEY + 0);
+            mFragment.onPreferenceFocused(first, /* panelIndex= */ i);
+            idleFor(PreviewDelayPolicy.MAX_DELAY_MS);
+            mFragment.navigateToPreviewFragment();
+            idleFor(NAVIGATION_MS);
+            assertThat(getPanelState(i + 1)).isEqualTo(Lifecycle.State.RESUMED);
+        }
+
+        RuntimeEnvironment.getApplication()
+                .onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        idleFor(NAVIGATION_MS);
+
+        for (int i = DEPTH - 1; i >= 0; i--) {
+            mFragment.navigateBack();
+            idleFor(NAVIGATION_MS);
+            assertThat(getPanelState(i)).isEqualTo(Lifecycle.State.RESUMED);
+        }
+    }
+
+    private Fragment getPanel(int index) {
+        return mFragment.getChildFragmentManager().findFragmentById(FRAME_IDS[index]);
+    }
+
+    private Lifecycle.State getPanelState(int index) {
+        return getPanel(index).getLifecycle().getCurrentState();
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /** Previews a list of preferences for every preference. */
+    public static class TestFragment extends TwoPanelSettingsFragment {
+        @Override
+        public void onPreferenceStartInitialScreen() {
+            startPreferenceFragment(new TestPreferenceFragment());
+        }
+
+        @Override
+        public Fragment onCreatePreviewFragment(Fragment caller, Preference preference) {
+            return new TestPreferenceFragment();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.KeyEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.leanback.preference.LeanbackPreferenceFragmentCompat;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceGroupAdapter;
+import androidx.preference.PreferenceScreen;
+
+import com.android.tv.twopanelsettings.slices.SlicePrefetcher;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the handling of focused preferences by {@link TwoPanelSettingsFragment}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TwoPanelSettingsFragmentTest {
+    private static final long KEY_REPEAT_MS = 50;
+    private static final long SEPARATE_PRESS_MS = 400;
+    private static final int PREFERENCE_COUNT = 20;
+
+    private TestFragment mFragment;
+    private TwoPanelSettingsRootView mRootView;
+
+    @Before
+    public void setUp() {
+        mFragment = FragmentController.of(new TestFragment())
+                .create()
+                .start()
+                .resume()
+                .visible()
+                .get();
+        shadowOf(Looper.getMainLooper()).idle();
+        mRootView = (TwoPanelSettingsRootView) mFragment.getView();
+        // Forget the initial preview.
+        mFragment.mPreviewedPreferences.clear();
+        mFragment.mPrefetchedPreferences.clear();
+    }
+
+    @Test
+    public void heldKey_previewsAndPrefetchesLastPreferenceOnce() {
+        long downTime = SystemClock.uptimeMillis();
+        for (int i = 1; i < PREFERENCE_COUNT; i++) {
+            pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, i - 1, getPreference(i));
+            idleFor(KEY_REPEAT_MS);
+        }
+        mRootView.dispatchKeyEvent(keyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_DPAD_DOWN,
+                downTime, 0));
+        idleFor(PreviewDelayPolicy.MAX_DELAY_MS);
+
+        // Only the first press, before the key started repeating, and the preference focused
+        // last are handled.
+        Preference last = getPreference(PREFERENCE_COUNT - 1);
+        assertThat(mFragment.mPreviewedPreferences)
+                .containsExactly(getPreference(1), last).inOrder();
+        assertThat(mFragment.mPrefetchedPreferences)
+                .containsExactly(getPreference(1), last).inOrder();
+    }
+
+    @Test
+    public void separatePresses_previewEachPreference() {
+        List<Preference> focused = new ArrayList<>();
+        for (int i = 1; i < PREFERENCE_COUNT; i++) {
+            long downTime = SystemClock.uptimeMillis();
+            pressKey(KeyEvent.KEYCODE_DPAD_DOWN, downTime, 0, getPreference(i));
+            mRootView.dispatchKeyEvent(keyEvent(KeyEvent.ACTION_UP,
+                    KeyEvent.KEYCODE_DPAD_DOWN, downTime, 0));
+            focused.add(getPreference(i));
+            idleFor(SEPARATE_PRESS_MS);
+        }
+
+        assertThat(mFragment.mPreviewedPreferences).containsExactlyElementsIn(focused).inOrder();
+        assertThat(mFragment.mPrefetchedPreferences).containsExactlyElementsIn(focused).inOrder();
+    }
+
+    /** Sends a key press to the fragment, then moves focus as the list does. */
+    private void pressKey(int keyCode, long downTime, int repeatCount, Preference next) {
+        mRootView.dispatchKeyEvent(keyEvent(KeyEvent.ACTION_DOWN, keyCode, downTime,
+                repeatCount));
+        mFragment.onPreferenceFocused(next, /* panelIndex= */ 0);
+    }
+
+    private Preference getPreference(int index) {
+        return mFragment.mPreferenceFragment.findPreference(TestPreferenceFragment.KEY + index);
+    }
+
+    private static KeyEvent keyEvent(int action, int keyCode, long downTime, int repeatCount) {
+        return new KeyEvent(downTime, SystemClock.uptimeMillis(), action, keyCode, repeatCount);
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /** Records the previews created and the slices prefetched. */
+    public static class TestFragment extends TwoPanelSettingsFragment {
+        final List<Preference> mPreviewedPreferences = new ArrayList<>();
+        final List<Preference> mPrefetchedPreferences = new ArrayList<>();
+        final TestPreferenceFragment mPreferenceFragment = new TestPreferenceFragment();
+
+        @Override
+        public void onPreferenceStartInitialScreen() {
+            startPreferenceFragment(mPreferenceFragment);
+        }
+
+        @Override
+        public Fragment onCreatePreviewFragment(Fragment caller, Preference preference) {
+            mPreviewedPreferences.add(preference);
+            return null;
+        }
+
+        @Override
+        SlicePrefetcher onCreateSlicePrefetcher() {
+            return new SlicePrefetcher(getContext()) {
+                @Override
+                public void onPreferenceFocused(@NonNull Preference focused,
+                        @Nullable PreferenceGroupAdapter adapter) {
+                    mPrefetchedPreferences.add(focused);
+                }
+            };
+        }
+    }
+
+    /** Lists {@link #PREFERENCE_COUNT} plain preferences. */
+    public static class TestPreferenceFragment extends LeanbackPreferenceFragmentCompat {
+        static final String KEY = "preference_";
+
+        @Override
+        public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
+            PreferenceScreen screen =
+                    getPreferenceManager().createPreferenceScreen(getContext());
+            for (int i = 0; i < PREFERENCE_COUNT; i++) {
+                Preference preference = new Preference(getContext());
+                preference.setKey(KEY + i);
+                preference.setTitle(KEY + i);
+                screen.addPreference(preference);
+            }
+            setPreferenceScreen(screen);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder;
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder.RowBuilder;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link SeekbarActionCoalescer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SeekbarActionCoalescerTest {
+    private static final Uri SLICE_URI =
+            Uri.parse("content://com.android.tv.settings.sliceprovider/sound");
+    private static final String KEY = "volume";
+    private static final String OTHER_KEY = "balance";
+
+    private Context mContext;
+    private SeekbarActionCoalescer mCoalescer;
+    private SliceSeekbarPreference mPreference;
+    private final List<Integer> mSentValues = new ArrayList<>();
+    private final List<String> mSentKeys = new ArrayList<>();
+    private int mAckTimeoutCount;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPreference = createPreference(KEY);
+        mCoalescer = new SeekbarActionCoalescer(new Handler(Looper.getMainLooper()),
+                new SeekbarActionCoalescer.Callback() {
+                    @Override
+                    public void sendValue(@NonNull SliceSeekbarPreference preference,
+                            int value) {
+                        mSentKeys.add(preference.getKey());
+                        mSentValues.add(value);
+                    }
+
+                    @Override
+                    public void onAckTimeout() {
+                        mAckTimeoutCount++;
+                    }
+                });
+    }
+
+    @Test
+    public void firstStep_sentImmediately() {
+        mCoalescer.onValueChanged(mPreference, 1);
+
+        assertThat(mSentValues).containsExactly(1);
+    }
+
+    @Test
+    public void stepsWithinInterval_sentInOrderWhenIntervalElapses() {
+        mCoalescer.onValueChanged(mPreference, 1);
+        mCoalescer.onValueChanged(mPreference, 2);
+        mCoalescer.onValueChanged(mPreference, 3);
+        mCoalescer.onValueChanged(mPreference, 4);
+
+        assertThat(mSentValues).containsExactly(1);
+        idleFor(SeekbarActionCoalescer.SEND_INTERVAL_MS);
+        assertThat(mSentValues).containsExactly(1, 2, 3, 4).inOrder();
+    }
+
+    @Test
+    public void flush_sendsPendingStepsNow() {
+        mCoalescer.onValueChanged(mPreference, 1);
+        mCoalescer.onValueChanged(mPreference, 2);
+
+        // As done when the focus moves away and when the fragment pauses.
+        mCoalescer.flush();
+
+        assertThat(mSentValues).containsExactly(1, 2).inOrder();
+        idleFor(SeekbarActionCoalescer.SEND_INTERVAL_MS);
+        assertThat(mSentValues).containsExactly(1, 2).inOrder();
+    }
+
+    @Test
+    public void flush_withoutPendingSteps_sendsNothing() {
+        mCoalescer.flush();
+
+        assertThat(mSentValues).isEmpty();
+    }
+
+    @Test
+    public void stepOfOtherPreference_sendsPendingStepsFirst() {
+        SliceSeekbarPreference other = createPreference(OTHER_KEY);
+        mCoalescer.onValueChanged(mPreference, 1);
+        mCoalescer.onValueChanged(mPreference, 2);
+
+        mCoalescer.onValueChanged(other, 5);
+        idleFor(SeekbarActionCoalescer.SEND_INTERVAL_MS);
+
+        assertThat(mSentKeys).containsExactly(KEY, KEY, OTHER_KEY).inOrder();
+        assertThat(mSentValues).containsExactly(1, 2, 5).inOrder();
+    }
+
+    @Test
+    public void shouldDefer_untilSliceShowsLastValueSent() {
+        mCoalescer.onValueChanged(mPreference, 1);
+        mCoalescer.onValueChanged(mPreference, 2);
+
+        // Steps are still pending.
+        assertThat(mCoalescer.shouldDefer(createSlice(1))).isTrue();
+        idleFor(SeekbarActionCoalescer.SEND_INTERVAL_MS);
+        // An intermediate value.
+        assertThat(mCoalescer.shouldDefer(createSlice(1))).isTrue();
+        assertThat(mCoalescer.shouldDefer(createSlice(2))).isFalse();
+        assertThat(mCoalescer.shouldDefer(createSlice(1))).isFalse();
+
+        idleFor(SeekbarActionCoalescer.ACK_TIMEOUT_MS);
+        assertThat(mAckTimeoutCount).isEqualTo(0);
+    }
+
+    @Test
+    public void ackTimeout_stopsDeferring() {
+        mCoalescer.onValueChanged(mPreference, 1);
+
+        idleFor(SeekbarActionCoalescer.ACK_TIMEOUT_MS - 1);
+        assertThat(mAckTimeoutCount).isEqualTo(0);
+        assertThat(mCoalescer.shouldDefer(createSlice(0))).isTrue();
+
+        idleFor(1);
+        assertThat(mAckTimeoutCount).isEqualTo(1);
+        assertThat(mCoalescer.shouldDefer(createSlice(0))).isFalse();
+    }
+
+    private SliceSeekbarPreference createPreference(String key) {
+        SliceSeekbarPreference preference = new SliceSeekbarPreference(mContext);
+        preference.setKey(key);
+        return preference;
+    }
+
+    private Slice createSlice(int value) {
+        PendingIntent action = PendingIntent.getBroadcast(mContext, 0,
+                new Intent("com.android.tv.twopanelsettings.test.SEEKBAR"),
+                PendingIntent.FLAG_IMMUTABLE);
+        PreferenceSliceBuilder psb = new PreferenceSliceBuilder(mContext, SLICE_URI);
+        psb.addPreference(new RowBuilder()
+                .setKey(KEY)
+                .setTitle(KEY)
+                .addSeekBar(action, 0, 10, value));
+        return psb.buildForSettings();
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+}
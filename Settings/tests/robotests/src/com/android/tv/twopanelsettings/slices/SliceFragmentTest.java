@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder;
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder.RowBuilder;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Tests for the updates applied by {@link SliceFragment}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SliceFragmentTest {
+    private static final String SLICE_URI_STRING =
+            "content://com.android.tv.settings.sliceprovider/general";
+    private static final Uri SLICE_URI = Uri.parse(SLICE_URI_STRING);
+
+    private Context mContext;
+    private TestSliceFragment mFragment;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        TestSliceFragment fragment = new TestSliceFragment();
+        Bundle args = new Bundle();
+        args.putString(SlicesConstants.TAG_TARGET_URI, SLICE_URI_STRING);
+        fragment.setArguments(args);
+        mFragment = FragmentController.of(fragment)
+                .create()
+                .start()
+                .resume()
+                .visible()
+                .get();
+        mFragment.mSliceData.setValue(createSlice("first"));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertThat(mFragment.mUpdateCount).isEqualTo(1);
+        mFragment.mUpdateCount = 0;
+    }
+
+    @Test
+    public void sliceAndStatusNotifications_applyOneUpdate() {
+        // One provider change, notified on the slice and on its status path.
+        mFragment.mSliceData.setValue(createSlice("second"));
+        mContext.getContentResolver().notifyChange(
+                SlicePreferencesUtil.getStatusPath(SLICE_URI_STRING), null);
+        idleFor(SliceUpdatePipeline.MAX_DELAY_MS);
+
+        assertThat(mFragment.mUpdateCount).isEqualTo(1);
+    }
+
+    private Slice createSlice(String title) {
+        PreferenceSliceBuilder psb = new PreferenceSliceBuilder(mContext, SLICE_URI);
+        psb.addPreference(new RowBuilder()
+                .setKey("row")
+                .setTitle(title));
+        return psb.buildForSettings();
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /** Serves the slices set by the test and counts the updates applied. */
+    public static class TestSliceFragment extends SliceFragment {
+        final MutableLiveData<Slice> mSliceData = new MutableLiveData<>();
+        int mUpdateCount;
+
+        @Override
+        LiveData<Slice> getSliceLiveData() {
+            return mSliceData;
+        }
+
+        @Override
+        Executor getUpdateExecutor() {
+            return Runnable::run;
+        }
+
+        @Override
+        void update(SliceScreenModel model) {
+            mUpdateCount++;
+            super.update(model);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+
+/**
+ * Tests for {@link SliceUpdatePipeline}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SliceUpdatePipelineTest {
+    private static final String SLICE_URI_STRING =
+            "content://com.android.tv.settings.sliceprovider/general";
+    private static final Uri SLICE_URI = Uri.parse(SLICE_URI_STRING);
+    private static final Uri STATUS_URI = SlicePreferencesUtil.getStatusPath(SLICE_URI_STRING);
+
+    private ContentResolver mContentResolver;
+    private MutableLiveData<Slice> mSliceData;
+    private SliceUpdatePipeline mPipeline;
+    private int mSliceUpdateCount;
+    private int mStatusUpdateCount;
+    private Slice mLastSlice;
+
+    @Before
+    public void setUp() {
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+        mSliceData = new MutableLiveData<>();
+        mPipeline = new SliceUpdatePipeline(mContentResolver, new Handler(Looper.getMainLooper()),
+                new SliceUpdatePipeline.Callback() {
+                    @Override
+                    public void onSliceUpdate(@NonNull Slice slice) {
+                        mSliceUpdateCount++;
+                        mLastSlice = slice;
+                    }
+
+                    @Override
+                    public void onStatusUpdate(@NonNull Uri statusUri) {
+                        mStatusUpdateCount++;
+                    }
+                });
+        mPipeline.start(mSliceData, STATUS_URI);
+    }
+
+    @After
+    public void tearDown() {
+        mPipeline.stop();
+    }
+
+    @Test
+    public void firstSlice_deliveredImmediately() {
+        Slice slice = createSlice();
+
+        mSliceData.setValue(slice);
+
+        assertThat(mSliceUpdateCount).isEqualTo(1);
+        assertThat(mLastSlice).isSameInstanceAs(slice);
+    }
+
+    @Test
+    public void sliceAndStatusNotifications_deliveredAsOneUpdate() {
+        mSliceData.setValue(createSlice());
+        Slice latest = createSlice();
+
+        // One provider change, notified on both paths and more than once.
+        mSliceData.setValue(createSlice());
+        mContentResolver.notifyChange(STATUS_URI, null);
+        mSliceData.setValue(latest);
+        mContentResolver.notifyChange(STATUS_URI, null);
+        idleFor(SliceUpdatePipeline.DEBOUNCE_MS);
+
+        assertThat(mSliceUpdateCount).isEqualTo(2);
+        assertThat(mLastSlice).isSameInstanceAs(latest);
+        assertThat(mStatusUpdateCount).isEqualTo(1);
+    }
+
+    @Test
+    public void separateChanges_deliveredSeparately() {
+        mSliceData.setValue(createSlice());
+
+        mSliceData.setValue(createSlice());
+        idleFor(SliceUpdatePipeline.DEBOUNCE_MS);
+        mSliceData.setValue(createSlice());
+        idleFor(SliceUpdatePipeline.DEBOUNCE_MS);
+
+        assertThat(mSliceUpdateCount).isEqualTo(3);
+    }
+
+    @Test
+    public void continuousNotifications_deliveredWithinMaxDelay() {
+        mSliceData.setValue(createSlice());
+
+        for (int i = 0; i < SliceUpdatePipeline.MAX_DELAY_MS / 10; i++) {
+            mSliceData.setValue(createSlice());
+            idleFor(10);
+        }
+
+        assertThat(mSliceUpdateCount).isEqualTo(2);
+    }
+
+    @Test
+    public void stop_dropsPendingUpdate() {
+        mSliceData.setValue(createSlice());
+        mSliceData.setValue(createSlice());
+        mContentResolver.notifyChange(STATUS_URI, null);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        mPipeline.stop();
+        idleFor(SliceUpdatePipeline.MAX_DELAY_MS);
+
+        assertThat(mSliceUpdateCount).isEqualTo(1);
+        assertThat(mStatusUpdateCount).isEqualTo(0);
+    }
+
+    private static Slice createSlice() {
+        return new Slice.Builder(SLICE_URI).build();
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package com.android.tv.twopanelsettings.slices.base;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+
+/**
+ * Tests for {@link SliceUpdateThrottle}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SliceUpdateThrottleTest {
+    private static final Uri SLICE_URI =
+            Uri.parse("content://com.android.tv.settings.accessories.sliceprovider/general");
+    private static final long MIN_INTERVAL_MS = 250;
+    private static final long EVENT_INTERVAL_MS = 10;
+    private static final long EVENT_COUNT = 100;
+
+    private ContentResolver mContentResolver;
+    private SliceUpdateThrottle mThrottle;
+    private long mChangeCount;
+    private long mLastChangeMs;
+    private long mLastRequestMs;
+
+    // Binds the slice on every change, like a client observing it would.
+    private final ContentObserver mObserver = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            mChangeCount++;
+            mLastChangeMs = SystemClock.uptimeMillis();
+            mThrottle.onBind(SLICE_URI);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+        mContentResolver.registerContentObserver(SLICE_URI, false, mObserver);
+        mThrottle = new SliceUpdateThrottle(mContentResolver,
+                new Handler(Looper.getMainLooper()));
+    }
+
+    @After
+    public void tearDown() {
+        mContentResolver.unregisterContentObserver(mObserver);
+    }
+
+    @Test
+    public void notifyChange_noInterval_deliversEveryNotification() {
+        runEventStorm(0);
+
+        assertThat(mThrottle.getRequestedCount(SLICE_URI)).isEqualTo(EVENT_COUNT);
+        assertThat(mThrottle.getDeliveredCount(SLICE_URI)).isEqualTo(EVENT_COUNT);
+        assertThat(mThrottle.getBindCount(SLICE_URI)).isEqualTo(EVENT_COUNT);
+        assertThat(mChangeCount).isEqualTo(EVENT_COUNT);
+    }
+
+    @Test
+    public void notifyChange_eventStorm_deliversOncePerInterval() {
+        runEventStorm(MIN_INTERVAL_MS);
+
+        // One notification right away, then one trailing notification per elapsed interval.
+        long expected = 1 + EVENT_COUNT * EVENT_INTERVAL_MS / MIN_INTERVAL_MS;
+        assertThat(mThrottle.getRequestedCount(SLICE_URI)).isEqualTo(EVENT_COUNT);
+        assertThat(mThrottle.getDeliveredCount(SLICE_URI)).isEqualTo(expected);
+        assertThat(mThrottle.getBindCount(SLICE_URI)).isEqualTo(expected);
+        assertThat(mChangeCount).isEqualTo(expected);
+    }
+
+    @Test
+    public void notifyChange_eventStorm_deliversLastChange() {
+        runEventStorm(MIN_INTERVAL_MS);
+
+        assertThat(mLastChangeMs).isAtLeast(mLastRequestMs);
+    }
+
+    @Test
+    public void notifyChange_afterInterval_deliversImmediately() {
+        mThrottle.notifyChange(SLICE_URI, MIN_INTERVAL_MS);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(MIN_INTERVAL_MS));
+
+        mThrottle.notifyChange(SLICE_URI, MIN_INTERVAL_MS);
+
+        assertThat(mChangeCount).isEqualTo(2);
+    }
+
+    private void runEventStorm(long minIntervalMs) {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            mLastRequestMs = SystemClock.uptimeMillis();
+            mThrottle.notifyChange(SLICE_URI, minIntervalMs);
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(EVENT_INTERVAL_MS));
+        }
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(MIN_INTERVAL_MS));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import android.os.Handler;
+import android.view.KeyEvent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Detects when the user holds D-pad up or down, so that the work done for each preference
+ * focused on the way can be skipped, and done once for the last one when the key is released.
+ * <p>
+ * Fast scroll starts with the first repeated key press and ends after the key is released, or
+ * when no repeat comes for {@link #REPEAT_TIMEOUT_MS} in case the release is never received.
+ */
+final class FastScrollController {
+    /** Time without a repeated key press after which fast scroll ends anyway. */
+    static final long REPEAT_TIMEOUT_MS = 500;
+
+    interface Callback {
+        /** Called when fast scroll ends, to handle the preference focused last. */
+        void onFastScrollEnded();
+    }
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+    private final Runnable mEndRunnable = this::end;
+    private boolean mActive;
+
+    FastScrollController(@NonNull Handler handler, @NonNull Callback callback) {
+        mHandler = handler;
+        mCallback = callback;
+    }
+
+    void onKeyEvent(@NonNull KeyEvent event) {
+        if (event.getKeyCode() != KeyEvent.KEYCODE_DPAD_UP
+                && event.getKeyCode() != KeyEvent.KEYCODE_DPAD_DOWN) {
+            return;
+        }
+        if (event.getAction() == KeyEvent.ACTION_DOWN) {
+            if (event.getRepeatCount() > 0) {
+                mActive = true;
+            }
+            if (mActive) {
+                mHandler.removeCallbacks(mEndRunnable);
+                mHandler.postDelayed(mEndRunnable, REPEAT_TIMEOUT_MS);
+            }
+        } else if (event.getAction() == KeyEvent.ACTION_UP && mActive) {
+            // Let the focus settle on the last preference first.
+            mHandler.removeCallbacks(mEndRunnable);
+            mHandler.post(mEndRunnable);
+        }
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * Ends fast scroll without calling back, e.g. when the screen goes away. Returns whether fast
+     * scroll was active.
+     */
+    boolean cancel() {
+        mHandler.removeCallbacks(mEndRunnable);
+        boolean wasActive = mActive;
+        mActive = false;
+        return wasActive;
+    }
+
+    private void end() {
+        if (mActive) {
+            mActive = false;
+            mCallback.onFastScrollEnded();
+        }
+    }
+}
@@ -18,20 +18,41 @@ package com.android.tv.twopanelsettings;
 
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
 import android.graphics.drawable.LayerDrawable;
 import android.util.Log;
+import android.util.LruCache;
 import android.view.Gravity;
 
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
+import java.util.WeakHashMap;
+
 /**
  * Create two panel settings style icon
  */
 public class IconUtil {
     private static final int INSET = 12;
     private static final String TAG = "IconUtil";
+    /** Maximum number of compound icons cached per theme. */
+    private static final int MAX_CACHED_ICONS = 64;
+
+    private static final Object sLock = new Object();
+    // Configuration the tint and the compound icons below were created for.
+    @GuardedBy("sLock")
+    private static Configuration sConfiguration;
+    @GuardedBy("sLock")
+    private static ColorStateList sIconTint;
+    // Constant states of the compound icons built for each theme, by icon. Themes with the same
+    // style applied are equal.
+    @GuardedBy("sLock")
+    private static final WeakHashMap<Resources.Theme, LruCache<String, Drawable.ConstantState>>
+            sCompoundIcons = new WeakHashMap<>();
 
     /**
      * Add the border and return the compound icon.
@@ -40,14 +61,9 @@ public class IconUtil {
         Drawable container =
                 ContextCompat.getDrawable(context, R.drawable.compound_icon_background);
 
-        Resources res = context.getResources();
-        try {
-            ColorStateList colorStateList = ColorStateList
-                    .createFromXml(res, res.getXml(R.color.two_panel_preference_icon_color));
+        ColorStateList colorStateList = getIconTint(context);
+        if (colorStateList != null) {
             icon.setTintList(colorStateList);
-        } catch (Exception e) {
-            Log.e(TAG, "Cannot set tint", e);
-
         }
 
         LayerDrawable compoundDrawable = new LayerDrawable(new Drawable[] {container, icon});
@@ -56,4 +72,90 @@ public class IconUtil {
         compoundDrawable.setLayerInset(1, INSET, INSET, INSET, INSET);
         return compoundDrawable;
     }
+
+    /**
+     * Loads {@code icon} and returns its compound icon. Compound icons of resource icons are
+     * cached per theme and resource, so that each is only loaded and processed once, and the
+     * drawables returned for the same resource share their constant state. Other icons are not
+     * cached: bitmaps come out of a new parcel on every slice update, and the content behind a
+     * uri may change while the uri stays the same.
+     */
+    @Nullable
+    public static Drawable getCompoundIcon(Context context, Icon icon) {
+        String key = getIconKey(icon);
+        Resources.Theme theme = context.getTheme();
+        if (key != null) {
+            Drawable.ConstantState state;
+            synchronized (sLock) {
+                state = getCache(context, theme).get(key);
+            }
+            if (state != null) {
+                return state.newDrawable(context.getResources(), theme);
+            }
+        }
+        Drawable iconDrawable = icon.loadDrawable(context);
+        if (iconDrawable == null) {
+            return null;
+        }
+        Drawable compoundIcon = getCompoundIcon(context, iconDrawable);
+        Drawable.ConstantState state = compoundIcon.getConstantState();
+        if (key == null || state == null) {
+            return compoundIcon;
+        }
+        synchronized (sLock) {
+            getCache(context, theme).put(key, state);
+        }
+        // Share the cached state from the first use on.
+        return state.newDrawable(context.getResources(), theme);
+    }
+
+    @Nullable
+    private static ColorStateList getIconTint(Context context) {
+        synchronized (sLock) {
+            checkConfiguration(context);
+            if (sIconTint == null) {
+                Resources res = context.getResources();
+                try {
+                    sIconTint = ColorStateList.createFromXml(
+                            res, res.getXml(R.color.two_panel_preference_icon_color));
+                } catch (Exception e) {
+                    Log.e(TAG, "Cannot set tint", e);
+                }
+            }
+            return sIconTint;
+        }
+    }
+
+    @GuardedBy("sLock")
+    private static LruCache<String, Drawable.ConstantState> getCache(Context context,
+            Resources.Theme theme) {
+        checkConfiguration(context);
+        LruCache<String, Drawable.ConstantState> cache = sCompoundIcons.get(theme);
+        if (cache == null) {
+            cache = new LruCache<>(MAX_CACHED_ICONS);
+            sCompoundIcons.put(theme, cache);
+        }
+        return cache;
+    }
+
+    /** Drops the tint and the compound icons if they were made for another configuration. */
+    @GuardedBy("sLock")
+    private static void checkConfiguration(Context context) {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (sConfiguration == null || sConfiguration.diff(configuration) != 0) {
+            sConfiguration = new Configuration(configuration);
+            sIconTint = null;
+            sCompoundIcons.clear();
+        }
+    }
+
+    @Nullable
+    private static String getIconKey(Icon icon) {
+        switch (icon.getType()) {
+            case Icon.TYPE_RESOURCE:
+                return "res:" + icon.getResPackage() + "/" + icon.getResId();
+            default:
+                return null;
+        }
+    }
 }
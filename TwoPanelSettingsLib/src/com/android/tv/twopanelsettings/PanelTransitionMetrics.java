@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Frame statistics of the panel transitions of {@link TwoPanelSettingsFragment}, collected with
+ * {@link Window.OnFrameMetricsAvailableListener} while each transition animates, and aggregated
+ * per kind of transition and source and destination fragment classes.
+ */
+public final class PanelTransitionMetrics {
+    private static final String TAG = "PanelTransitionMetrics";
+    private static final boolean DEBUG = false;
+    /** Upper bounds, exclusive, of the buckets of the frame duration histogram. */
+    private static final long[] FRAME_BUCKETS_MS = {17, 25, 34, 50, 100};
+    /** Time frames are still collected after the animation of a transition ends. */
+    private static final long SETTLE_MS = 100;
+
+    private static final Object sLock = new Object();
+    @GuardedBy("sLock")
+    private static final Map<String, TransitionStats> sStats = new ArrayMap<>();
+    private static Handler sFrameHandler;
+
+    private final Window mWindow;
+    private final Handler mHandler;
+    private final Runnable mEndRunnable = this::end;
+    private final Window.OnFrameMetricsAvailableListener mFrameListener = this::onFrame;
+    // Transition being measured, or null. Frames are received on the frame handler thread.
+    @GuardedBy("sLock")
+    private Transition mTransition;
+
+    /**
+     * @param window the window the transitions are drawn in.
+     * @param handler handler of the main thread.
+     */
+    PanelTransitionMetrics(@NonNull Window window, @NonNull Handler handler) {
+        mWindow = window;
+        mHandler = handler;
+    }
+
+    /**
+     * Starts measuring a transition of {@code kind}, from the fragment class {@code from} to
+     * {@code to}, whose animations last {@code durationMs}. Ends the transition measured before,
+     * if any.
+     */
+    @MainThread
+    void begin(@NonNull String kind, @NonNull String from, @NonNull String to, long durationMs) {
+        end();
+        String key = kind + " " + from + " -> " + to;
+        Display display = mWindow.getDecorView().getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        Transition transition = new Transition(key, (long) (1_000_000_000L / refreshRate));
+        synchronized (sLock) {
+            mTransition = transition;
+        }
+        try {
+            mWindow.addOnFrameMetricsAvailableListener(mFrameListener, getFrameHandler());
+        } catch (IllegalStateException e) {
+            // Not hardware accelerated.
+            Log.w(TAG, "Cannot measure frames", e);
+            synchronized (sLock) {
+                mTransition = null;
+            }
+            return;
+        }
+        mHandler.postDelayed(mEndRunnable, durationMs + SETTLE_MS);
+    }
+
+    /** Ends the transition being measured, if any, and adds its frames to the statistics. */
+    @MainThread
+    void end() {
+        mHandler.removeCallbacks(mEndRunnable);
+        Transition transition;
+        synchronized (sLock) {
+            transition = mTransition;
+            mTransition = null;
+            if (transition == null) {
+                return;
+            }
+            TransitionStats stats = sStats.get(transition.mKey);
+            if (stats == null) {
+                stats = new TransitionStats();
+                sStats.put(transition.mKey, stats);
+            }
+            stats.add(transition, SystemClock.uptimeMillis());
+        }
+        try {
+            mWindow.removeOnFrameMetricsAvailableListener(mFrameListener);
+        } catch (IllegalArgumentException e) {
+            // Already removed.
+        }
+        if (DEBUG) {
+            Log.d(TAG, transition.mKey + " frames=" + transition.mFrames
+                    + " janky=" + transition.mJankyFrames
+                    + " worstMs=" + transition.mWorstFrameNs / 1_000_000);
+        }
+    }
+
+    private void onFrame(Window window, FrameMetrics frameMetrics,
+            int dropCountSinceLastInvocation) {
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+            return;
+        }
+        long durationNs = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        synchronized (sLock) {
+            if (mTransition != null) {
+                mTransition.addFrame(durationNs, dropCountSinceLastInvocation);
+            }
+        }
+    }
+
+    /**
+     * Prints the statistics of all transitions measured.
+     */
+    public static void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        ArrayMap<String, TransitionStats> entries = new ArrayMap<>();
+        synchronized (sLock) {
+            for (Map.Entry<String, TransitionStats> entry : sStats.entrySet()) {
+                entries.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        writer.print(prefix);
+        writer.println("PanelTransitionMetrics (" + entries.size() + " transitions):");
+        for (int i = 0; i < entries.size(); i++) {
+            entries.valueAt(i).dump(prefix + "  ", entries.keyAt(i), writer);
+        }
+    }
+
+    /** Returns the name {@code fragment} is tagged with in the statistics. */
+    @NonNull
+    static String getName(@Nullable Object fragment) {
+        return fragment != null ? fragment.getClass().getSimpleName() : "none";
+    }
+
+    private static synchronized Handler getFrameHandler() {
+        if (sFrameHandler == null) {
+            HandlerThread thread = new HandlerThread(TAG);
+            thread.start();
+            sFrameHandler = new Handler(thread.getLooper());
+        }
+        return sFrameHandler;
+    }
+
+    /** Frames of one transition. */
+    private static final class Transition {
+        final String mKey;
+        final long mFrameIntervalNs;
+        final long mStartMs = SystemClock.uptimeMillis();
+        final long[] mHistogram = new long[FRAME_BUCKETS_MS.length + 1];
+        int mFrames;
+        int mJankyFrames;
+        int mDroppedReports;
+        long mWorstFrameNs;
+
+        Transition(String key, long frameIntervalNs) {
+            mKey = key;
+            mFrameIntervalNs = frameIntervalNs;
+        }
+
+        void addFrame(long durationNs, int droppedReports) {
+            mFrames++;
+            mDroppedReports += droppedReports;
+            if (durationNs > mFrameIntervalNs) {
+                mJankyFrames++;
+            }
+            mWorstFrameNs = Math.max(mWorstFrameNs, durationNs);
+            long durationMs = durationNs / 1_000_000;
+            int bucket = 0;
+            while (bucket < FRAME_BUCKETS_MS.length && durationMs >= FRAME_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            mHistogram[bucket]++;
+        }
+    }
+
+    /** Aggregated frames of the transitions of one kind. */
+    private static final class TransitionStats {
+        final long[] mHistogram = new long[FRAME_BUCKETS_MS.length + 1];
+        int mCount;
+        long mFrames;
+        long mJankyFrames;
+        long mDroppedReports;
+        long mWorstFrameNs;
+        long mTotalDurationMs;
+
+        void add(Transition transition, long endMs) {
+            mCount++;
+            mFrames += transition.mFrames;
+            mJankyFrames += transition.mJankyFrames;
+            mDroppedReports += transition.mDroppedReports;
+            mWorstFrameNs = Math.max(mWorstFrameNs, transition.mWorstFrameNs);
+            mTotalDurationMs += endMs - transition.mStartMs;
+            for (int i = 0; i < mHistogram.length; i++) {
+                mHistogram[i] += transition.mHistogram[i];
+            }
+        }
+
+        TransitionStats copy() {
+            TransitionStats copy = new TransitionStats();
+            System.arraycopy(mHistogram, 0, copy.mHistogram, 0, mHistogram.length);
+            copy.mCount = mCount;
+            copy.mFrames = mFrames;
+            copy.mJankyFrames = mJankyFrames;
+            copy.mDroppedReports = mDroppedReports;
+            copy.mWorstFrameNs = mWorstFrameNs;
+            copy.mTotalDurationMs = mTotalDurationMs;
+            return copy;
+        }
+
+        void dump(String prefix, String key, PrintWriter writer) {
+            writer.print(prefix);
+            writer.println(key);
+            writer.print(prefix);
+            writer.println("  count=" + mCount + " frames=" + mFrames
+                    + " janky=" + mJankyFrames
+                    + " worstMs=" + mWorstFrameNs / 1_000_000
+                    + " totalMs=" + mTotalDurationMs
+                    + " droppedReports=" + mDroppedReports);
+            writer.print(prefix);
+            writer.print("  frameHistogram=");
+            for (int i = 0; i < mHistogram.length; i++) {
+                writer.print(i < FRAME_BUCKETS_MS.length
+                        ? "<" + FRAME_BUCKETS_MS[i] : ">=" + FRAME_BUCKETS_MS[i - 1]);
+                writer.print(":" + mHistogram[i] + " ");
+            }
+            writer.println();
+        }
+    }
+}
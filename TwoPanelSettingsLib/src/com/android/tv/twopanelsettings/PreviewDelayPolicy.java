@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.KeyEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Chooses how long {@link TwoPanelSettingsFragment} waits before creating the preview of the
+ * focused preference.
+ * <p>
+ * The creation cost of each type of preview is measured, and the user's D-pad rate tracked:
+ * cheap and cached previews are shown right away, others after the configured delay, and
+ * while the user scrolls fast the delay outlasts the next key press, so that previews of
+ * preferences the user only passes by are not created at all.
+ */
+public final class PreviewDelayPolicy {
+    private static final String TAG = "PreviewDelayPolicy";
+    private static final boolean DEBUG = false;
+    /** Previews cheaper than this are shown without delay. */
+    static final long CHEAP_PREVIEW_MS = 16;
+    /** Maximum delay chosen. */
+    static final long MAX_DELAY_MS = 300;
+    /** D-pad presses closer than this are fast scrolling. */
+    static final long FAST_SCROLL_INTERVAL_MS = 150;
+    /** Previews replaced sooner than this after being shown were wasted. */
+    static final long WASTED_PREVIEW_MS = 300;
+    // Weight of the last measure in the moving averages.
+    private static final float WEIGHT = 0.25f;
+
+    /** Reports the decisions of the policy, e.g. to tests or benchmarks. */
+    public interface Listener {
+        /** Called when the preview of type {@code previewType} is scheduled. */
+        void onDelayChosen(@NonNull String previewType, long delayMs, boolean fastScrolling);
+
+        /**
+         * Called when a preview of type {@code previewType}, which took {@code costMs} to create,
+         * is replaced before the user could look at it.
+         */
+        void onPreviewWasted(@NonNull String previewType, long costMs);
+    }
+
+    // Average creation cost by preview type.
+    private final ArrayMap<String, Long> mCosts = new ArrayMap<>();
+    private long mLastKeyMs = -1;
+    // Average interval between vertical D-pad presses, while the user keeps pressing.
+    private long mKeyIntervalMs = Long.MAX_VALUE;
+    private String mShownType;
+    private long mShownMs;
+    private long mShownCostMs;
+    private int mChosenCount;
+    private int mWastedCount;
+    @Nullable
+    private Listener mListener;
+
+    void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /** Tracks the rate of vertical D-pad presses. */
+    void onKeyEvent(@NonNull KeyEvent event) {
+        if (event.getAction() != KeyEvent.ACTION_DOWN
+                || (event.getKeyCode() != KeyEvent.KEYCODE_DPAD_UP
+                && event.getKeyCode() != KeyEvent.KEYCODE_DPAD_DOWN)) {
+            return;
+        }
+        long interval = mLastKeyMs >= 0 ? event.getEventTime() - mLastKeyMs : Long.MAX_VALUE;
+        if (interval > MAX_DELAY_MS || mKeyIntervalMs == Long.MAX_VALUE) {
+            // The user paused, start over.
+            mKeyIntervalMs = interval;
+        } else {
+            mKeyIntervalMs = average(mKeyIntervalMs, interval);
+        }
+        mLastKeyMs = event.getEventTime();
+    }
+
+    /**
+     * Returns whether the user is scrolling fast through the preferences at {@code nowMs}. Held
+     * keys are handled by {@link FastScrollController}, this only tracks separate presses.
+     */
+    boolean isFastScrolling(long nowMs) {
+        if (mLastKeyMs < 0 || nowMs - mLastKeyMs > FAST_SCROLL_INTERVAL_MS) {
+            return false;
+        }
+        return mKeyIntervalMs < FAST_SCROLL_INTERVAL_MS;
+    }
+
+    /**
+     * Returns the delay before creating a preview of type {@code previewType}.
+     *
+     * @param cached whether the preview is cached, and so only needs to be attached again.
+     * @param baseDelayMs the delay configured for the device, used for previews which are not
+     *                    known to be cheap.
+     */
+    long getDelay(@NonNull String previewType, boolean cached, long baseDelayMs, long nowMs) {
+        boolean fastScrolling = isFastScrolling(nowMs);
+        long delay;
+        if (fastScrolling) {
+            // Outlast the next key press.
+            delay = Math.max(baseDelayMs, Math.min(MAX_DELAY_MS, 2 * mKeyIntervalMs));
+        } else if (cached) {
+            delay = 0;
+        } else {
+            // Delaying an expensive preview by its cost would only make the user wait longer.
+            Long cost = mCosts.get(previewType);
+            delay = cost != null && cost < CHEAP_PREVIEW_MS ? 0 : baseDelayMs;
+        }
+        mChosenCount++;
+        if (DEBUG) {
+            Log.d(TAG, "delay " + previewType + " " + delay + "ms, fast " + fastScrolling);
+        }
+        if (mListener != null) {
+            mListener.onDelayChosen(previewType, delay, fastScrolling);
+        }
+        return delay;
+    }
+
+    /**
+     * Records that a preview of type {@code previewType} is now shown, after taking
+     * {@code costMs} to create, or to attach again if {@code cached}.
+     */
+    void onPreviewShown(@NonNull String previewType, long costMs, boolean cached, long nowMs) {
+        if (mShownType != null && nowMs - mShownMs < WASTED_PREVIEW_MS) {
+            mWastedCount++;
+            if (DEBUG) {
+                Log.d(TAG, "wasted " + mShownType + " " + mShownCostMs + "ms, "
+                        + mWastedCount + "/" + mChosenCount);
+            }
+            if (mListener != null) {
+                mListener.onPreviewWasted(mShownType, mShownCostMs);
+            }
+        }
+        if (!cached) {
+            Long cost = mCosts.get(previewType);
+            mCosts.put(previewType, cost == null ? costMs : average(cost, costMs));
+        }
+        mShownType = previewType;
+        mShownMs = nowMs;
+        mShownCostMs = costMs;
+    }
+
+    /** Forgets the preview shown, e.g. when the panels move and it is no longer a preview. */
+    void onPreviewHidden() {
+        mShownType = null;
+    }
+
+    private static long average(long average, long value) {
+        return (long) (average + WEIGHT * (value - average));
+    }
+}
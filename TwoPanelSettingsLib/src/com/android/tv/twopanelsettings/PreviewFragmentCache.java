@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Least recently used preview panel fragments of {@link TwoPanelSettingsFragment}, detached from
+ * the preview panel but still held by the fragment manager, by the key of their preference.
+ * <p>
+ * The cache only tracks the fragments: adding, attaching and removing them is left to the caller,
+ * which must remove the fragments returned by {@link #put} and {@link #clear}.
+ */
+final class PreviewFragmentCache {
+    private final int mMaxSize;
+    // In access order, least recently used first.
+    private final LinkedHashMap<String, Fragment> mFragments =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    PreviewFragmentCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    boolean isEnabled() {
+        return mMaxSize > 0;
+    }
+
+    boolean contains(@NonNull String key) {
+        return mFragments.containsKey(key);
+    }
+
+    /**
+     * Removes and returns the fragment cached for {@code key}, if it is of the same class and has
+     * the same arguments as {@code fragment}, which was just created for the same preference.
+     */
+    @Nullable
+    Fragment take(@NonNull String key, @NonNull Fragment fragment) {
+        Fragment cached = mFragments.get(key);
+        if (cached == null || cached.getClass() != fragment.getClass()
+                || !TwoPanelSettingsFragment.equalArguments(cached.getArguments(),
+                        fragment.getArguments())) {
+            return null;
+        }
+        mFragments.remove(key);
+        return cached;
+    }
+
+    /**
+     * Caches {@code fragment} for {@code key}, and returns the fragments which no longer fit and
+     * need to be removed.
+     */
+    @NonNull
+    List<Fragment> put(@NonNull String key, @NonNull Fragment fragment) {
+        List<Fragment> evicted = new ArrayList<>(1);
+        Fragment previous = mFragments.put(key, fragment);
+        if (previous != null && previous != fragment) {
+            evicted.add(previous);
+        }
+        Iterator<Fragment> it = mFragments.values().iterator();
+        while (mFragments.size() > mMaxSize && it.hasNext()) {
+            evicted.add(it.next());
+            it.remove();
+        }
+        return evicted;
+    }
+
+    /** Empties the cache, and returns the fragments which need to be removed. */
+    @NonNull
+    List<Fragment> clear() {
+        List<Fragment> fragments = new ArrayList<>(mFragments.values());
+        mFragments.clear();
+        return fragments;
+    }
+}
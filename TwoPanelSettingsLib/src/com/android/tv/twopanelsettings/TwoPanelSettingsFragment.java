@@ -27,15 +27,18 @@ import android.animation.ArgbEvaluator;
 import android.animation.ObjectAnimator;
 import android.app.ActivityManager;
 import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
 import android.content.ContentProviderClient;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.res.Configuration;
 import android.graphics.drawable.Icon;
 import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.transition.Fade;
@@ -53,6 +56,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.leanback.app.GuidedStepSupportFragment;
@@ -60,6 +64,7 @@ import androidx.leanback.preference.LeanbackListPreferenceDialogFragmentCompat;
 import androidx.leanback.preference.LeanbackPreferenceFragmentCompat;
 import androidx.leanback.widget.OnChildViewHolderSelectedListener;
 import androidx.leanback.widget.VerticalGridView;
+import androidx.lifecycle.Lifecycle;
 import androidx.preference.ListPreference;
 import androidx.preference.MultiSelectListPreference;
 import androidx.preference.Preference;
@@ -74,10 +79,12 @@ import com.android.tv.twopanelsettings.slices.HasSliceUri;
 import com.android.tv.twopanelsettings.slices.InfoFragment;
 import com.android.tv.twopanelsettings.slices.SliceFragment;
 import com.android.tv.twopanelsettings.slices.SlicePreference;
+import com.android.tv.twopanelsettings.slices.SlicePrefetcher;
 import com.android.tv.twopanelsettings.slices.SliceSeekbarPreference;
 import com.android.tv.twopanelsettings.slices.SliceSwitchPreference;
 import com.android.tv.twopanelsettings.slices.SlicesConstants;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -98,6 +105,8 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             "com.android.tv.settings.TwoPanelSettingsFragment.PREFERENCE_FRAGMENT";
     private static final String EXTRA_PREF_PANEL_IDX =
             "com.android.tv.twopanelsettings.PREF_PANEL_IDX";
+    private static final String EXTRA_RETAINED_PANEL_COUNT =
+            "com.android.tv.twopanelsettings.RETAINED_PANEL_COUNT";
     private static final int[] frameResIds =
             {R.id.frame1, R.id.frame2, R.id.frame3, R.id.frame4, R.id.frame5, R.id.frame6,
                     R.id.frame7, R.id.frame8, R.id.frame9, R.id.frame10};
@@ -113,6 +122,10 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
     private static final long CHECK_IDLE_STATE_MS = 100;
     private long mPreviewPanelCreationDelay = 0;
     private static final float PREVIEW_PANEL_ALPHA = 0.6f;
+    /** Maximum number of preview fragments cached on low RAM devices. */
+    private static final int LOW_RAM_PREVIEW_CACHE_SIZE = 1;
+    /** Maximum number of panels retained on low RAM devices. */
+    private static final int LOW_RAM_RETAINED_PANEL_COUNT = 0;
 
     private int mMaxScrollX;
     private final RootViewOnKeyListener mRootViewOnKeyListener = new RootViewOnKeyListener();
@@ -125,6 +138,25 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
     private boolean mIsWaitingForUpdatingPreview = false;
     private AudioManager mAudioManager;
     private InputMethodManager mInputMethodManager;
+    private SlicePrefetcher mSlicePrefetcher;
+    private boolean mPrefetchSliceSubtree;
+    // Index of the panel showing the top level slice whose subtree is prefetched, or -1.
+    private int mSubtreeRootPanelIdx = -1;
+    private PreviewFragmentCache mPreviewFragmentCache;
+    private final PreviewDelayPolicy mPreviewDelayPolicy = new PreviewDelayPolicy();
+    // Defers the handling of focused preferences while D-pad up or down is held.
+    private FastScrollController mFastScrollController;
+    private int mFastScrollPanelIdx;
+    // Cache key of the fragment shown in the preview panel, or null if it cannot be cached.
+    private String mPreviewKey;
+    private PanelTransitionMetrics mTransitionMetrics;
+    private int mMaxRetainedPanels;
+    // Number of panels left of the main panel which are kept, paused, instead of being removed
+    // when the user navigates forward, i.e. the panels from mPrefPanelIdx - mRetainedPanelCount
+    // to mPrefPanelIdx - 1. Only the panels left of those have back stack entries.
+    private int mRetainedPanelCount;
+    // Class of the fragment shown in the main panel since the last panel move.
+    private String mMainPanelName = PanelTransitionMetrics.getName(null);
 
     private static final String DELAY_MS = "delay_ms";
     private static final String CHECK_SCROLL_STATE = "check_scroll_state";
@@ -144,6 +176,24 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
     };
 
 
+    private final ComponentCallbacks2 mComponentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            clearPreviewFragmentCache();
+            releaseRetainedPanels();
+        }
+
+        @Override
+        public void onLowMemory() {
+            clearPreviewFragmentCache();
+            releaseRetainedPanels();
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+    };
+
     private final OnGlobalLayoutListener mOnGlobalLayoutListener = new OnGlobalLayoutListener() {
         @Override
         public void onGlobalLayout() {
@@ -195,6 +245,33 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         updatePreviewPanelCreationDelayForLowRamDevice();
         mAudioManager = (AudioManager) getContext().getSystemService(Context.AUDIO_SERVICE);
         mInputMethodManager = getContext().getSystemService(InputMethodManager.class);
+        mSlicePrefetcher = onCreateSlicePrefetcher();
+        mPrefetchSliceSubtree = getContext().getResources()
+                .getBoolean(R.bool.config_prefetch_slice_subtree);
+        int previewCacheSize = getContext().getResources()
+                .getInteger(R.integer.config_preview_fragment_cache_size);
+        if (ActivityManager.isLowRamDeviceStatic()) {
+            previewCacheSize = Math.min(previewCacheSize, LOW_RAM_PREVIEW_CACHE_SIZE);
+        }
+        mPreviewFragmentCache = new PreviewFragmentCache(previewCacheSize);
+        mMaxRetainedPanels = getContext().getResources()
+                .getInteger(R.integer.config_retained_panel_count);
+        if (ActivityManager.isLowRamDeviceStatic()) {
+            mMaxRetainedPanels = Math.min(mMaxRetainedPanels, LOW_RAM_RETAINED_PANEL_COUNT);
+        }
+        getContext().registerComponentCallbacks(mComponentCallbacks);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        getContext().unregisterComponentCallbacks(mComponentCallbacks);
+        mSlicePrefetcher.cancelSubtree();
+    }
+
+    @VisibleForTesting
+    SlicePrefetcher onCreateSlicePrefetcher() {
+        return new SlicePrefetcher(getContext());
     }
 
     private void updatePreviewPanelCreationDelayForLowRamDevice() {
@@ -209,8 +286,11 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         final View v = inflater.inflate(R.layout.two_panel_settings_fragment, container, false);
         mScrollView = v.findViewById(R.id.scrollview);
         mHandler = new Handler();
+        mFastScrollController = new FastScrollController(mHandler, this::onFastScrollEnded);
+        mTransitionMetrics = new PanelTransitionMetrics(getActivity().getWindow(), mHandler);
         if (savedInstanceState != null) {
             mPrefPanelIdx = savedInstanceState.getInt(EXTRA_PREF_PANEL_IDX, mPrefPanelIdx);
+            mRetainedPanelCount = savedInstanceState.getInt(EXTRA_RETAINED_PANEL_COUNT, 0);
             // Move to correct panel once global layout finishes.
             v.getViewTreeObserver().addOnGlobalLayoutListener(mOnGlobalLayoutListener);
         }
@@ -220,7 +300,11 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
 
     @Override
     public void onSaveInstanceState(Bundle outState) {
+        // Detached previews would be restored without being cached, drop them before the child
+        // fragment manager saves its state.
+        clearPreviewFragmentCache();
         outState.putInt(EXTRA_PREF_PANEL_IDX, mPrefPanelIdx);
+        outState.putInt(EXTRA_RETAINED_PANEL_COUNT, mRetainedPanelCount);
         super.onSaveInstanceState(outState);
     }
 
@@ -334,18 +418,37 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                     View.IMPORTANT_FOR_ACCESSIBILITY_YES);
         }
 
+        clearPreviewFragmentCache();
         mPrefPanelIdx++;
 
         Fragment fragmentToBeMainPanel = getChildFragmentManager()
                 .findFragmentById(frameResIds[mPrefPanelIdx]);
         addOrRemovePreferenceFocusedListener(fragmentToBeMainPanel, true);
+        maybePrefetchSliceSubtree(fragmentToBeMainPanel);
         final FragmentTransaction transaction = getChildFragmentManager().beginTransaction();
         transaction.replace(frameResIds[mPrefPanelIdx + 1], initialPreviewFragment,
                 PREVIEW_FRAGMENT_TAG);
         transaction.commitAllowingStateLoss();
 
         moveToPanel(mPrefPanelIdx, true);
-        removeFragmentAndAddToBackStack(mPrefPanelIdx - 1);
+        retainOrRemovePanel(mPrefPanelIdx - 1);
+    }
+
+    /**
+     * Starts binding the children of the slice shown by {@code mainPanelFragment} if it is a top
+     * level slice, i.e. the user entered a slice backed section.
+     */
+    private void maybePrefetchSliceSubtree(Fragment mainPanelFragment) {
+        if (!mPrefetchSliceSubtree || mSubtreeRootPanelIdx >= 0
+                || !(mainPanelFragment instanceof SliceFragment)) {
+            return;
+        }
+        String uri = ((SliceFragment) mainPanelFragment).getUri();
+        if (TextUtils.isEmpty(uri) || Uri.parse(uri).getPathSegments().size() > 1) {
+            return;
+        }
+        mSubtreeRootPanelIdx = mPrefPanelIdx;
+        mSlicePrefetcher.prefetchSubtree(Uri.parse(uri));
     }
 
     private boolean isA11yOn() {
@@ -414,6 +517,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             Log.d(TAG, "startPreferenceFragment");
         }
         addOrRemovePreferenceFocusedListener(fragment, true);
+        clearPreviewFragmentCache();
         FragmentTransaction transaction = getChildFragmentManager().beginTransaction();
         transaction.add(frameResIds[mPrefPanelIdx], fragment, PREFERENCE_FRAGMENT_TAG);
         transaction.commitNowAllowingStateLoss();
@@ -449,15 +553,16 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             if (preview instanceof NavigationCallback) {
                 ((NavigationCallback) preview).onNavigateToPreview();
             }
+            clearPreviewFragmentCache();
             mPrefPanelIdx++;
             moveToPanel(mPrefPanelIdx, true);
-            removeFragmentAndAddToBackStack(mPrefPanelIdx - 1);
+            retainOrRemovePanel(mPrefPanelIdx - 1);
             return true;
         }
         return false;
     }
 
-    private boolean equalArguments(Bundle a, Bundle b) {
+    static boolean equalArguments(Bundle a, Bundle b) {
         if (a == null && b == null) {
             return true;
         }
@@ -503,10 +608,26 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         onPreferenceFocusedImpl(pref, false, panelIndex);
     }
 
+    /**
+     * Sets a listener notified of the delays chosen before showing previews, and of the previews
+     * which were created for nothing, for instrumentation.
+     */
+    public void setPreviewDelayListener(@Nullable PreviewDelayPolicy.Listener listener) {
+        mPreviewDelayPolicy.setListener(listener);
+    }
+
     private void onPreferenceFocusedImpl(Preference pref, boolean forceRefresh, int panelIndex) {
         if (pref == null) {
             return;
         }
+        if (!forceRefresh && mFastScrollController != null && mFastScrollController.isActive()) {
+            // Only the preference focused last is handled, when fast scroll ends. The preview
+            // shown until then is stale.
+            mFocusedPreference = pref;
+            mFastScrollPanelIdx = panelIndex;
+            mIsWaitingForUpdatingPreview = true;
+            return;
+        }
         if (DEBUG) {
             Log.d(TAG, "onPreferenceFocused " + pref.getTitle());
         }
@@ -516,17 +637,43 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             ((SliceFragmentCallback) prefFragment).onPreferenceFocused(pref);
         }
         mFocusedPreference = pref;
-        if (mCheckVerticalGridViewScrollState || mPreviewPanelCreationDelay > 0) {
+        // Start binding the preview slices of the focused preference and its neighbors now, so
+        // they are ready when the preview panel is created.
+        mSlicePrefetcher.onPreferenceFocused(pref, getPreferenceGroupAdapter(prefFragment));
+        String previewKey = getPreviewKey(pref);
+        long delay = mPreviewDelayPolicy.getDelay(getPreviewType(pref),
+                !forceRefresh && previewKey != null && mPreviewFragmentCache.contains(previewKey),
+                mPreviewPanelCreationDelay, SystemClock.uptimeMillis());
+        if (mCheckVerticalGridViewScrollState || delay > 0) {
             mIsWaitingForUpdatingPreview = true;
             VerticalGridView listView = (VerticalGridView)
                     ((LeanbackPreferenceFragmentCompat) prefFragment).getListView();
             mHandler.postDelayed(new PostShowPreviewRunnable(
-                    listView, pref, forceRefresh, panelIndex), mPreviewPanelCreationDelay);
+                    listView, pref, forceRefresh, panelIndex), delay);
         } else {
             handleFragmentTransactionWhenFocused(pref, forceRefresh, panelIndex);
         }
     }
 
+    private void onFastScrollEnded() {
+        mIsWaitingForUpdatingPreview = false;
+        if (isAdded() && mFocusedPreference != null) {
+            onPreferenceFocusedImpl(mFocusedPreference, false, mFastScrollPanelIdx);
+        }
+    }
+
+    @Nullable
+    private static PreferenceGroupAdapter getPreferenceGroupAdapter(Fragment prefFragment) {
+        if (!(prefFragment instanceof PreferenceFragmentCompat)) {
+            return null;
+        }
+        RecyclerView listView = ((PreferenceFragmentCompat) prefFragment).getListView();
+        if (listView == null || !(listView.getAdapter() instanceof PreferenceGroupAdapter)) {
+            return null;
+        }
+        return (PreferenceGroupAdapter) listView.getAdapter();
+    }
+
     private final class PostShowPreviewRunnable implements Runnable {
         private final VerticalGridView mListView;
         private final Preference mPref;
@@ -563,6 +710,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         Fragment previewFragment = null;
         final Fragment prefFragment =
                 getChildFragmentManager().findFragmentById(frameResIds[mPrefPanelIdx]);
+        long startMs = SystemClock.uptimeMillis();
         try {
             previewFragment = onCreatePreviewFragment(prefFragment, pref);
         } catch (Exception e) {
@@ -574,10 +722,13 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         final Fragment existingPreviewFragment =
                 getChildFragmentManager().findFragmentById(
                         frameResIds[mPrefPanelIdx + 1]);
+        String previewKey =
+                previewFragment instanceof DummyFragment ? null : getPreviewKey(pref);
         if (existingPreviewFragment != null
                 && existingPreviewFragment.getClass().equals(previewFragment.getClass())
                 && equalArguments(existingPreviewFragment.getArguments(),
                 previewFragment.getArguments())) {
+            mPreviewKey = previewKey;
             if (isRTL() && mScrollView.getScrollX() == 0 && mPrefPanelIdx == 0
                     && getView() != null && getView().getViewTreeObserver() != null) {
                 // For RTL we need to reclaim focus to the correct scroll position if a pref
@@ -596,14 +747,46 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         if (existingPreviewFragment != null) {
             existingPreviewFragment.setExitTransition(null);
         }
+        // A preview shown before for this preference is attached again instead, unless the
+        // preview is to be refreshed.
+        Fragment cachedFragment = forceRefresh || previewKey == null
+                ? null : mPreviewFragmentCache.take(previewKey, previewFragment);
+        if (cachedFragment != null) {
+            previewFragment = cachedFragment;
+        }
         previewFragment.setEnterTransition(new Fade());
         previewFragment.setExitTransition(null);
         final FragmentTransaction transaction =
                 getChildFragmentManager().beginTransaction();
         transaction.setCustomAnimations(R.animator.fade_in_preview_panel,
                 R.animator.fade_out_preview_panel);
-        transaction.replace(frameResIds[mPrefPanelIdx + 1], previewFragment);
+        boolean cacheExisting = existingPreviewFragment != null && mPreviewKey != null
+                && !forceRefresh;
+        if (cacheExisting) {
+            transaction.detach(existingPreviewFragment);
+            for (Fragment evicted : mPreviewFragmentCache.put(mPreviewKey,
+                    existingPreviewFragment)) {
+                transaction.remove(evicted);
+            }
+        } else if (existingPreviewFragment != null && cachedFragment != null) {
+            transaction.remove(existingPreviewFragment);
+        }
+        if (cachedFragment != null) {
+            transaction.attach(cachedFragment);
+        } else if (cacheExisting) {
+            transaction.add(frameResIds[mPrefPanelIdx + 1], previewFragment);
+        } else {
+            transaction.replace(frameResIds[mPrefPanelIdx + 1], previewFragment);
+        }
+        mTransitionMetrics.begin("preview",
+                PanelTransitionMetrics.getName(existingPreviewFragment),
+                PanelTransitionMetrics.getName(previewFragment),
+                getResources().getInteger(android.R.integer.config_longAnimTime));
         transaction.commitNowAllowingStateLoss();
+        mPreviewKey = previewKey;
+        long nowMs = SystemClock.uptimeMillis();
+        mPreviewDelayPolicy.onPreviewShown(getPreviewType(pref), nowMs - startMs,
+                cachedFragment != null, nowMs);
 
         // Some fragments may steal focus on creation. Reclaim focus on main fragment.
         if (getView() != null && getView().getViewTreeObserver() != null) {
@@ -612,6 +795,41 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
     }
 
+    /**
+     * Returns the key the preview of {@code pref} is cached by once it leaves the preview panel,
+     * or null if it should not be cached.
+     */
+    @Nullable
+    private String getPreviewKey(Preference pref) {
+        if (!mPreviewFragmentCache.isEnabled() || pref.getKey() == null) {
+            return null;
+        }
+        return mPrefPanelIdx + ":" + pref.getKey();
+    }
+
+    /** Returns the type of preview of {@code pref}, whose creation cost is tracked. */
+    private static String getPreviewType(Preference pref) {
+        return pref.getFragment() != null ? pref.getFragment() : pref.getClass().getName();
+    }
+
+    /** Removes the cached preview fragments, e.g. before the panels move. */
+    private void clearPreviewFragmentCache() {
+        mPreviewKey = null;
+        mPreviewDelayPolicy.onPreviewHidden();
+        if (mPreviewFragmentCache == null) {
+            return;
+        }
+        List<Fragment> fragments = mPreviewFragmentCache.clear();
+        if (fragments.isEmpty() || !isAdded()) {
+            return;
+        }
+        FragmentTransaction transaction = getChildFragmentManager().beginTransaction();
+        for (Fragment fragment : fragments) {
+            transaction.remove(fragment);
+        }
+        transaction.commitAllowingStateLoss();
+    }
+
     private boolean onSeekbarPreferenceChanged(SliceSeekbarPreference pref, int addValue) {
         final Fragment prefFragment =
                 getChildFragmentManager().findFragmentById(frameResIds[mPrefPanelIdx]);
@@ -649,6 +867,13 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
         super.onPause();
         getContext().unregisterReceiver(mPreviewPanelDelayReceiver);
+        mSlicePrefetcher.cancelAll();
+        if (mTransitionMetrics != null) {
+            mTransitionMetrics.end();
+        }
+        if (mFastScrollController != null && mFastScrollController.cancel()) {
+            mIsWaitingForUpdatingPreview = false;
+        }
         final TwoPanelSettingsRootView rootView = (TwoPanelSettingsRootView) getView();
         if (rootView != null) {
             rootView.setOnBackKeyListener(null);
@@ -737,6 +962,8 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                 Log.d(TAG, "Fragment not attached yet.");
                 return true;
             }
+            mPreviewDelayPolicy.onKeyEvent(event);
+            mFastScrollController.onKeyEvent(event);
             Fragment prefFragment =
                     getChildFragmentManager().findFragmentById(frameResIds[mPrefPanelIdx]);
 
@@ -884,9 +1111,23 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
 
         mIsNavigatingBack = true;
-        getChildFragmentManager().popBackStack();
-
+        clearPreviewFragmentCache();
         mPrefPanelIdx--;
+        if (mRetainedPanelCount > 0) {
+            // The panel was kept as the user left it, resuming it refreshes its content.
+            mRetainedPanelCount--;
+            resumeRetainedPanel(mPrefPanelIdx);
+        } else {
+            getChildFragmentManager().popBackStackImmediate();
+            // The panel comes back with the maximum state it was removed with, which is paused if
+            // it was retained before.
+            resumeRetainedPanel(mPrefPanelIdx);
+        }
+        if (mPrefPanelIdx < mSubtreeRootPanelIdx) {
+            // Left the section whose subtree was being prefetched.
+            mSlicePrefetcher.cancelSubtree();
+            mSubtreeRootPanelIdx = -1;
+        }
 
         mHandler.postDelayed(() -> {
             if (isKeyBackPressed) {
@@ -916,17 +1157,75 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
     }
 
+    /**
+     * Takes the panel at {@code index}, which the user just navigated forward from, off the
+     * screen: retains it, paused, if panels are retained, or else removes it and adds its removal
+     * to the back stack.
+     */
+    private void retainOrRemovePanel(int index) {
+        if (index < 0) {
+            return;
+        }
+        if (mMaxRetainedPanels == 0) {
+            removeFragmentAndAddToBackStack(index);
+            return;
+        }
+        Fragment panel = getChildFragmentManager().findFragmentById(frameResIds[index]);
+        if (panel != null) {
+            getChildFragmentManager().beginTransaction()
+                    .setMaxLifecycle(panel, Lifecycle.State.STARTED)
+                    .commitAllowingStateLoss();
+        }
+        // An empty panel is counted as well, so that the retained panels stay the ones right of
+        // the panels with back stack entries.
+        mRetainedPanelCount++;
+        if (mRetainedPanelCount > mMaxRetainedPanels) {
+            // Removals are added to the back stack from left to right, so that popping it still
+            // restores the panels in order.
+            removeFragmentAndAddToBackStack(mPrefPanelIdx - mRetainedPanelCount);
+            mRetainedPanelCount--;
+        }
+    }
+
+    private void resumeRetainedPanel(int index) {
+        Fragment panel = getChildFragmentManager().findFragmentById(frameResIds[index]);
+        if (panel != null) {
+            getChildFragmentManager().beginTransaction()
+                    .setMaxLifecycle(panel, Lifecycle.State.RESUMED)
+                    .commitAllowingStateLoss();
+        }
+    }
+
+    /** Removes the retained panels when memory is low, adding their removals to the back stack. */
+    private void releaseRetainedPanels() {
+        if (mRetainedPanelCount == 0 || !isAdded()
+                || getChildFragmentManager().isStateSaved()) {
+            return;
+        }
+        for (int i = mRetainedPanelCount; i > 0; i--) {
+            removeFragmentAndAddToBackStack(mPrefPanelIdx - i);
+        }
+        mRetainedPanelCount = 0;
+    }
+
+    /**
+     * Removes the panel at {@code index} and adds its removal to the back stack. An empty entry is
+     * added for an empty panel, so that navigating back pops one entry per panel.
+     */
     private void removeFragmentAndAddToBackStack(int index) {
         if (index < 0) {
             return;
         }
         Fragment removePanel = getChildFragmentManager().findFragmentById(frameResIds[index]);
+        FragmentTransaction transaction = getChildFragmentManager().beginTransaction();
         if (removePanel != null) {
             removePanel.setExitTransition(new Fade());
-            getChildFragmentManager().beginTransaction().remove(removePanel)
-                    .addToBackStack("remove " + removePanel.getClass().getName())
-                    .commitAllowingStateLoss();
+            transaction.remove(removePanel)
+                    .addToBackStack("remove " + removePanel.getClass().getName());
+        } else {
+            transaction.addToBackStack("remove empty panel");
         }
+        transaction.commitAllowingStateLoss();
     }
 
     /** For RTL layout, we need to know the right edge from where the panels start scrolling. */
@@ -985,7 +1284,10 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                     R.color.tp_preview_panel_background_color);
             int mainPanelColor = getResources().getColor(
                     R.color.tp_preference_panel_background_color);
+            String mainPanelName = PanelTransitionMetrics.getName(fragmentToBecomeMainPanel);
             if (smoothScroll) {
+                mTransitionMetrics.begin("panel", mMainPanelName, mainPanelName,
+                        PANEL_ANIMATION_SLIDE_MS);
                 int animationEnd = isRTL() ? mMaxScrollX - panelWidth * index : panelWidth * index;
                 distanceToScrollToRight = animationEnd - mScrollView.getScrollX();
                 // Slide animation
@@ -1085,6 +1387,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                     scrollToPanelHead.setBackgroundColor(mainPanelColor);
                 }
             }
+            mMainPanelName = mainPanelName;
             if (fragmentToBecomeMainPanel != null && fragmentToBecomeMainPanel.getView() != null) {
                 if (!isA11yOn()) {
                     fragmentToBecomeMainPanel.getView().requestFocus();
@@ -1308,6 +1611,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                 Bundle b = preference.getExtras();
                 b.putString(SlicesConstants.TAG_TARGET_URI, slicePref.getUri());
                 b.putCharSequence(SlicesConstants.TAG_SCREEN_TITLE, preference.getTitle());
+                b.putCharSequence(SlicesConstants.TAG_SCREEN_SUMMARY, preference.getSummary());
             }
             return Fragment.instantiate(getActivity(), preference.getFragment(),
                     preference.getExtras());
@@ -60,6 +60,20 @@ public class ContextSingleton {
         return mSliceMap.get(uri);
     }
 
+    /**
+     * Drops the SliceLiveData of {@code uri} and the slice it holds if nothing observes it.
+     * Returns whether it was dropped.
+     */
+    public boolean releaseSliceLiveData(Uri uri) {
+        SliceLiveDataImpl liveData = mSliceMap.get(uri);
+        if (liveData == null || liveData.hasObservers()) {
+            return false;
+        }
+        mSliceMap.remove(uri);
+        liveData.release();
+        return true;
+    }
+
     /**
      *  Grant full access to current package.
      */
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static android.app.slice.Slice.HINT_PARTIAL;
+
+import android.content.ContentProviderClient;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Observer;
+
+import com.android.tv.twopanelsettings.slices.PreferenceSliceLiveData.SliceLiveDataImpl;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceItem;
+import com.android.tv.twopanelsettings.slices.compat.widget.ListContent;
+import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shares the slices of embedded slice preferences across the process: each distinct uri is
+ * observed once, its embedded item extracted once per version, and the result fanned out to all
+ * the preferences subscribed to it.
+ * <p>
+ * Uris subscribed to for the first time during the same main thread message are bound together,
+ * one batch per provider authority, while holding a single connection to the provider.
+ */
+@MainThread
+final class EmbeddedSliceMultiplexer {
+    private static final String TAG = "EmbeddedSliceMux";
+    private static final boolean DEBUG = false;
+
+    private static EmbeddedSliceMultiplexer sInstance;
+
+    /** Receives the embedded item of a slice. */
+    interface Subscriber {
+        /**
+         * Called with the embedded item of the latest version of the slice, or null if the slice
+         * has none or is not fully bound.
+         */
+        void onEmbeddedItemChanged(@Nullable SliceItem item);
+    }
+
+    private final ArrayMap<Uri, Entry> mEntries = new ArrayMap<>();
+    // Entries to observe once the current message is done, so that their binds can be batched.
+    private final ArrayList<Entry> mPendingEntries = new ArrayList<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mBindPendingRunnable = this::bindPending;
+
+    static EmbeddedSliceMultiplexer getInstance() {
+        if (sInstance == null) {
+            sInstance = new EmbeddedSliceMultiplexer();
+        }
+        return sInstance;
+    }
+
+    private EmbeddedSliceMultiplexer() {
+    }
+
+    /**
+     * Subscribes {@code subscriber} to the slice of {@code uri}. The subscriber is called right
+     * away if the slice was already delivered to other subscribers.
+     */
+    void subscribe(@NonNull Context context, @NonNull Uri uri, @NonNull Subscriber subscriber) {
+        Entry entry = mEntries.get(uri);
+        if (entry == null) {
+            entry = new Entry(context, uri);
+            mEntries.put(uri, entry);
+            mPendingEntries.add(entry);
+            mHandler.removeCallbacks(mBindPendingRunnable);
+            mHandler.post(mBindPendingRunnable);
+        }
+        if (!entry.mSubscribers.add(subscriber)) {
+            return;
+        }
+        if (entry.mHasItem) {
+            subscriber.onEmbeddedItemChanged(entry.mItem);
+        }
+    }
+
+    /**
+     * Unsubscribes {@code subscriber} from the slice of {@code uri}. The slice stops being
+     * observed when its last subscriber leaves.
+     */
+    void unsubscribe(@NonNull Uri uri, @NonNull Subscriber subscriber) {
+        Entry entry = mEntries.get(uri);
+        if (entry == null || !entry.mSubscribers.remove(subscriber)
+                || !entry.mSubscribers.isEmpty()) {
+            return;
+        }
+        mEntries.remove(uri);
+        mPendingEntries.remove(entry);
+        entry.release();
+    }
+
+    /** Binds the entries subscribed to during the last message, grouped by authority. */
+    private void bindPending() {
+        ArrayMap<String, List<Entry>> batches = new ArrayMap<>();
+        for (Entry entry : mPendingEntries) {
+            List<Runnable> binds = entry.mLiveData.hasActiveObservers() ? null : entry.mBinds;
+            if (binds != null) {
+                entry.mLiveData.prefetch(binds::add);
+            }
+            if (binds == null || binds.isEmpty()) {
+                // Already observed, or already being bound: nothing to batch.
+                entry.observe();
+                continue;
+            }
+            String authority = entry.mUri.getAuthority();
+            List<Entry> batch = batches.get(authority);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(authority, batch);
+            }
+            batch.add(entry);
+        }
+        mPendingEntries.clear();
+        for (int i = 0; i < batches.size(); i++) {
+            bindBatch(batches.keyAt(i), batches.valueAt(i));
+        }
+    }
+
+    private void bindBatch(String authority, List<Entry> batch) {
+        if (DEBUG) {
+            Log.d(TAG, "bind " + batch.size() + " slices of " + authority);
+        }
+        ContentResolver resolver = batch.get(0).mContext.getContentResolver();
+        Uri authorityUri = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(authority)
+                .build();
+        AsyncTask.execute(() -> {
+            // Holding the provider keeps it connected between the binds of the batch.
+            ContentProviderClient client =
+                    resolver.acquireUnstableContentProviderClient(authorityUri);
+            try {
+                for (Entry entry : batch) {
+                    for (Runnable bind : entry.mBinds) {
+                        bind.run();
+                    }
+                }
+            } finally {
+                if (client != null) {
+                    client.close();
+                }
+            }
+            mHandler.post(() -> {
+                for (Entry entry : batch) {
+                    entry.mBinds.clear();
+                    if (mEntries.get(entry.mUri) == entry) {
+                        // The live data delivers the slice bound above without binding again.
+                        entry.observe();
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Returns the embedded item of {@code slice}, or null if it has none or is not fully bound.
+     */
+    @Nullable
+    private static SliceItem getEmbeddedItem(@Nullable Slice slice) {
+        if (slice == null || slice.getHints() == null || slice.getHints().contains(HINT_PARTIAL)) {
+            return null;
+        }
+        List<SliceContent> items = new ListContent(slice).getRowItems();
+        if (items == null || items.size() == 0) {
+            return null;
+        }
+        return SlicePreferencesUtil.getEmbeddedItem(items);
+    }
+
+    /** The observer of one uri, shared by all its subscribers. */
+    private static final class Entry implements Observer<Slice> {
+        final Context mContext;
+        final Uri mUri;
+        final SliceLiveDataImpl mLiveData;
+        final ArraySet<Subscriber> mSubscribers = new ArraySet<>();
+        // Binds handed over by the live data for the current batch.
+        final List<Runnable> mBinds = new ArrayList<>(1);
+        boolean mObserving;
+        boolean mHasItem;
+        SliceItem mItem;
+
+        Entry(Context context, Uri uri) {
+            mContext = context.getApplicationContext();
+            mUri = uri;
+            mLiveData = ContextSingleton.getInstance().getSliceLiveData(mContext, uri);
+        }
+
+        void observe() {
+            if (!mObserving) {
+                mObserving = true;
+                mLiveData.observeForever(this);
+            }
+        }
+
+        void release() {
+            if (mObserving) {
+                mObserving = false;
+                mLiveData.removeObserver(this);
+            }
+        }
+
+        @Override
+        public void onChanged(Slice slice) {
+            mItem = getEmbeddedItem(slice);
+            mHasItem = true;
+            // Subscribers may unsubscribe while being called.
+            Subscriber[] subscribers = mSubscribers.toArray(new Subscriber[0]);
+            for (Subscriber subscriber : subscribers) {
+                if (mSubscribers.contains(subscriber)) {
+                    subscriber.onEmbeddedItemChanged(mItem);
+                }
+            }
+        }
+    }
+}
@@ -16,32 +16,27 @@
 
 package com.android.tv.twopanelsettings.slices;
 
-import static android.app.slice.Slice.HINT_PARTIAL;
-
 import android.content.Context;
 import android.net.Uri;
 import android.view.ContextThemeWrapper;
 
-import androidx.lifecycle.Observer;
+import androidx.annotation.Nullable;
 import androidx.preference.Preference;
 
-import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.base.SliceMetrics;
 import com.android.tv.twopanelsettings.slices.compat.SliceItem;
-import com.android.tv.twopanelsettings.slices.compat.widget.ListContent;
-import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
-
-import java.util.List;
 
 /**
- * Helper class to handle the updates for embedded slice preferences.
+ * Helper class to handle the updates for embedded slice preferences. The slice is observed through
+ * {@link EmbeddedSliceMultiplexer}, shared with the other embedded preferences of the same uri.
  */
-public class EmbeddedSlicePreferenceHelper implements Observer<Slice> {
+public class EmbeddedSlicePreferenceHelper implements EmbeddedSliceMultiplexer.Subscriber {
     private final Preference mPreference;
     private final Context mContext;
     SlicePreferenceListener mListener;
     Preference mNewPref;
     private String mUri;
-    private Slice mSlice;
+    private SliceMetrics mMetrics;
 
     EmbeddedSlicePreferenceHelper(Preference preference, String uri) {
         mPreference = preference;
@@ -50,26 +45,30 @@ public class EmbeddedSlicePreferenceHelper implements Observer<Slice> {
     }
 
     void onAttached() {
-        getSliceLiveData().observeForever(this);
+        EmbeddedSliceMultiplexer.getInstance().subscribe(mContext, Uri.parse(mUri), this);
+        getSliceMetrics().logVisible();
     }
 
     void onDetached() {
-        getSliceLiveData().removeObserver(this);
+        EmbeddedSliceMultiplexer.getInstance().unsubscribe(Uri.parse(mUri), this);
+        getSliceMetrics().logHidden();
     }
 
-    private PreferenceSliceLiveData.SliceLiveDataImpl getSliceLiveData() {
-        return ContextSingleton.getInstance()
-                .getSliceLiveData(mContext, Uri.parse(mUri));
+    /** Reports a user action on the embedded slice. */
+    void logTouch(int actionType) {
+        getSliceMetrics().logTouch(actionType, Uri.parse(mUri));
     }
 
-    @Override
-    public void onChanged(Slice slice) {
-        mSlice = slice;
-        if (slice == null || slice.getHints() == null || slice.getHints().contains(HINT_PARTIAL)) {
-            updateVisibility(false);
-            return;
+    private SliceMetrics getSliceMetrics() {
+        if (mMetrics == null) {
+            mMetrics = new SliceMetrics(mContext, Uri.parse(mUri));
         }
-        update();
+        return mMetrics;
+    }
+
+    @Override
+    public void onEmbeddedItemChanged(@Nullable SliceItem embeddedItem) {
+        update(embeddedItem);
     }
 
     private void updateVisibility(boolean visible) {
@@ -79,14 +78,11 @@ public class EmbeddedSlicePreferenceHelper implements Observer<Slice> {
         }
     }
 
-    private void update() {
-        ListContent mListContent = new ListContent(mSlice);
-        List<SliceContent> items = mListContent.getRowItems();
-        if (items == null || items.size() == 0) {
+    private void update(@Nullable SliceItem embeddedItem) {
+        if (embeddedItem == null) {
             updateVisibility(false);
             return;
         }
-        SliceItem embeddedItem = SlicePreferencesUtil.getEmbeddedItem(items);
         // TODO(b/174691340): Refactor this class and integrate the functionality to TsPreference.
         // TODO: Redesign TvSettings project structure so class in twopanelsettings lib can access
         //  FlavorUtils
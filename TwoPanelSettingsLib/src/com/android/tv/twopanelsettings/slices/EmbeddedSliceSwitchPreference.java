@@ -29,6 +29,7 @@ import androidx.annotation.Nullable;
 import androidx.preference.TwoStatePreference;
 
 import com.android.tv.twopanelsettings.R;
+import com.android.tv.twopanelsettings.slices.compat.widget.EventInfo;
 
 /**
  * An embedded slice switch preference which would be embedded in common TvSettings preference
@@ -110,6 +111,7 @@ public class EmbeddedSliceSwitchPreference extends SliceSwitchPreference {
             if (mAction == null) {
                 return;
             }
+            mHelper.logTouch(EventInfo.ACTION_TYPE_TOGGLE);
             if (mAction.isToggle()) {
                 // Update the intent extra state
                 Intent i = new Intent().putExtra(EXTRA_TOGGLE_STATE, newValue);
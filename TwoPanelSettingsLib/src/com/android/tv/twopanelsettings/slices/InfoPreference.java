@@ -58,6 +58,12 @@ public class InfoPreference extends Preference implements HasCustomContentDescri
         }
     }
 
+    /** Sets the title and summary pairs listed by this preference. */
+    public void setInfoList(List<Pair<CharSequence, CharSequence>> infoList) {
+        mInfoList = infoList;
+        notifyChanged();
+    }
+
     /**
      * Sets the accessibility content description that will be read to the TalkBack users when they
      * focus on this preference.
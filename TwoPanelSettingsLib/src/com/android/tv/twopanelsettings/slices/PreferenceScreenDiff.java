@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceGroup;
+import androidx.preference.TwoStatePreference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Updates the preferences of a {@link PreferenceGroup} to match a new list of preferences with the
+ * fewest changes.
+ * <p>
+ * Old and new preferences are matched through a hash of their identity, in linear time. Old
+ * preferences without a match are removed and new ones without a match are inserted. Matched
+ * preferences are kept, moved if their order changed, and only the fields which differ are
+ * copied from the new preference.
+ */
+final class PreferenceScreenDiff {
+    private static final String TAG = "PreferenceScreenDiff";
+    private static final boolean DEBUG = false;
+
+    private PreferenceScreenDiff() {
+    }
+
+    /**
+     * Updates {@code group} to show {@code newPrefs}, and returns the preferences of the group
+     * which were kept and updated in place, keyed by the new preference they replace.
+     */
+    static Map<Preference, Preference> apply(@NonNull PreferenceGroup group,
+            @NonNull List<Preference> newPrefs) {
+        HashMap<String, Preference> newPrefsByIdentity = new HashMap<>(newPrefs.size() * 2);
+        for (int i = 0; i < newPrefs.size(); i++) {
+            String identity = getIdentity(newPrefs.get(i));
+            if (identity != null) {
+                newPrefsByIdentity.putIfAbsent(identity, newPrefs.get(i));
+            }
+        }
+
+        // Remove all the preferences in the group that satisfy such three cases:
+        // (a) Preference without key
+        // (b) Preference with key which does not appear in the new list.
+        // (c) Preference with key which does appear in the new list, but the preference has changed
+        // ability to handle slices and needs to be replaced instead of re-used.
+        IdentityHashMap<Preference, Preference> newToOld = new IdentityHashMap<>();
+        List<Preference> removed = new ArrayList<>();
+        for (int i = 0; i < group.getPreferenceCount(); i++) {
+            Preference oldPref = group.getPreference(i);
+            String identity = getIdentity(oldPref);
+            // Each new preference replaces at most one old preference.
+            Preference newPref = identity != null ? newPrefsByIdentity.remove(identity) : null;
+            if (newPref != null) {
+                newToOld.put(newPref, oldPref);
+            } else {
+                removed.add(oldPref);
+            }
+        }
+        if (newToOld.isEmpty()) {
+            group.removeAll();
+        } else {
+            for (int i = 0; i < removed.size(); i++) {
+                group.removePreference(removed.get(i));
+            }
+        }
+
+        SparseBooleanArray twoStatePreferenceIsCheckedByOrder = new SparseBooleanArray();
+        for (int i = 0; i < newPrefs.size(); i++) {
+            if (newPrefs.get(i) instanceof TwoStatePreference) {
+                twoStatePreferenceIsCheckedByOrder.put(
+                        i, ((TwoStatePreference) newPrefs.get(i)).isChecked());
+            }
+        }
+
+        // Iterate the new preferences list and give each preference a correct order.
+        int inserted = 0;
+        int moved = 0;
+        int changed = 0;
+        for (int i = 0; i < newPrefs.size(); i++) {
+            Preference newPref = newPrefs.get(i);
+            Preference oldPref = newToOld.get(newPref);
+            if (oldPref == null) {
+                newPref.setOrder(i);
+                group.addPreference(newPref);
+                inserted++;
+                continue;
+            }
+
+            if (oldPref.getOrder() != i) {
+                oldPref.setOrder(i);
+                moved++;
+            }
+            if (oldPref == newPref) {
+                // The row did not change since the last update.
+                continue;
+            }
+            if (oldPref instanceof EmbeddedSlicePreference) {
+                // EmbeddedSlicePreference has its own slice observer
+                // (EmbeddedSlicePreferenceHelper). Should therefore not be updated by
+                // slice observer in SliceFragment.
+                // The order will however still need to be updated, as this can not be handled
+                // by EmbeddedSlicePreferenceHelper.
+                continue;
+            }
+            if (applyChanges(oldPref, newPref)) {
+                changed++;
+            }
+        }
+
+        // addPreference will reset the checked status of TwoStatePreference.
+        // So we need to add them back
+        for (int i = 0; i < group.getPreferenceCount(); i++) {
+            Preference pref = group.getPreference(i);
+            int index = twoStatePreferenceIsCheckedByOrder.indexOfKey(pref.getOrder());
+            if (pref instanceof TwoStatePreference && index >= 0) {
+                ((TwoStatePreference) pref).setChecked(
+                        twoStatePreferenceIsCheckedByOrder.valueAt(index));
+            }
+        }
+        if (DEBUG) {
+            Log.d(TAG, "inserted=" + inserted + " removed=" + removed.size() + " moved=" + moved
+                    + " changed=" + changed + " kept=" + newToOld.size());
+        }
+        return newToOld;
+    }
+
+    /**
+     * Returns the key under which {@code pref} matches the preferences it can be updated from, or
+     * null if it can not be re-used.
+     */
+    @Nullable
+    static String getIdentity(@NonNull Preference pref) {
+        if (pref instanceof EmbeddedSlicePreference) {
+            // Embedded preferences are matched by the uri of the slice they observe.
+            return "embedded:" + ((EmbeddedSlicePreference) pref).getUri();
+        }
+        if (pref.getKey() == null) {
+            return null;
+        }
+        return (pref instanceof HasSliceUri ? "slice:" : "pref:") + pref.getKey();
+    }
+
+    /**
+     * Copies the fields of {@code newPref} which differ to {@code oldPref}, and returns whether
+     * any did.
+     */
+    private static boolean applyChanges(Preference oldPref, Preference newPref) {
+        boolean changed = false;
+        if (!isSameIcon(oldPref.getIcon(), newPref.getIcon())) {
+            oldPref.setIcon(newPref.getIcon());
+            changed = true;
+        }
+        if (!TextUtils.equals(oldPref.getTitle(), newPref.getTitle())) {
+            oldPref.setTitle(newPref.getTitle());
+            changed = true;
+        }
+        if (!TextUtils.equals(oldPref.getSummary(), newPref.getSummary())) {
+            oldPref.setSummary(newPref.getSummary());
+            changed = true;
+        }
+        if (oldPref.isEnabled() != newPref.isEnabled()) {
+            oldPref.setEnabled(newPref.isEnabled());
+            changed = true;
+        }
+        if (oldPref.isSelectable() != newPref.isSelectable()) {
+            oldPref.setSelectable(newPref.isSelectable());
+            changed = true;
+        }
+        if (!TextUtils.equals(oldPref.getFragment(), newPref.getFragment())) {
+            oldPref.setFragment(newPref.getFragment());
+            changed = true;
+        }
+        Bundle newExtras = newPref.peekExtras();
+        if (newExtras != null && !newExtras.isEmpty()) {
+            oldPref.getExtras().putAll(newExtras);
+        }
+        if ((oldPref instanceof HasSliceAction) && (newPref instanceof HasSliceAction)) {
+            ((HasSliceAction) oldPref).setSliceAction(((HasSliceAction) newPref).getSliceAction());
+        }
+        if ((oldPref instanceof HasSliceUri) && (newPref instanceof HasSliceUri)) {
+            ((HasSliceUri) oldPref).setUri(((HasSliceUri) newPref).getUri());
+        }
+        if ((oldPref instanceof HasCustomContentDescription)
+                && (newPref instanceof HasCustomContentDescription)) {
+            String contentDescription =
+                    ((HasCustomContentDescription) newPref).getContentDescription();
+            if (!Objects.equals(contentDescription,
+                    ((HasCustomContentDescription) oldPref).getContentDescription())) {
+                ((HasCustomContentDescription) oldPref).setContentDescription(contentDescription);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isSameIcon(@Nullable Drawable oldIcon, @Nullable Drawable newIcon) {
+        if (oldIcon == newIcon) {
+            return true;
+        }
+        if (oldIcon == null || newIcon == null) {
+            return false;
+        }
+        // Drawables loaded from the same resource share their constant state.
+        Drawable.ConstantState state = oldIcon.getConstantState();
+        return state != null && state == newIcon.getConstantState();
+    }
+}
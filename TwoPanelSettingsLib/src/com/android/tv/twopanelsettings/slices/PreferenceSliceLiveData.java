@@ -21,6 +21,10 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.MainThread;
@@ -29,9 +33,12 @@ import androidx.annotation.RequiresApi;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.android.tv.twopanelsettings.slices.base.SliceMetrics;
 import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceFingerprint;
 import com.android.tv.twopanelsettings.slices.compat.SliceViewManager;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -50,6 +57,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @RequiresApi(19)
 public final class PreferenceSliceLiveData {
     private static final String TAG = "SliceLiveData";
+    /** Parcel size is measured on one out of this many binds, as parceling is not free. */
+    private static final int PARCEL_SIZE_SAMPLE_RATE = 8;
+    /** A prefetched slice is handed to the first observer if it is not older than this. */
+    private static final long PREFETCH_TTL_MS = 5000;
 
     /**
      * Produces a {@link LiveData} that tracks a Slice for a given Uri. To use
@@ -67,18 +78,44 @@ public final class PreferenceSliceLiveData {
         final SliceViewManager mSliceViewManager;
         Uri mUri;
         final AtomicBoolean mUpdatePending = new AtomicBoolean(false);
+        final SliceMetrics mMetrics;
+        private int mBindCount;
+        // Last slice delivered, whose unchanged rows are shared with the next one.
+        private Slice mLastSlice;
+        // Set while a prefetch is queued on its executor and has not started yet.
+        private final AtomicBoolean mPrefetchQueued = new AtomicBoolean(false);
+        // Uptime of the last prefetch request, or -1. Main thread only.
+        private long mPrefetchRequestedMs = -1;
+        // Whether the last prefetch failed to bind a slice, so that it must be bound again.
+        private volatile boolean mPrefetchFailed;
+        // Whether the slice callback was registered by a prefetch, so that changes made before
+        // the first observer comes are received. Main thread only.
+        private boolean mPrefetchCallbackRegistered;
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+        private final Runnable mExpirePrefetch = this::expirePrefetch;
         SliceLiveDataImpl(Context context, Uri uri) {
             super();
             mSliceViewManager = SliceViewManager.getInstance(context);
             mUri = uri;
             mIntent = null;
+            mMetrics = new SliceMetrics(context, uri);
             // TODO: Check if uri points at a Slice?
         }
 
         @Override
         protected void onActive() {
-            AsyncTask.execute(mUpdateSlice);
-            if (mUri != null) {
+            // A prefetch that is still queued is stolen and bound at normal priority. One that
+            // already bound the slice delivers it without binding it again: its slice callback
+            // has been receiving the changes since.
+            if (mPrefetchQueued.compareAndSet(true, false) || !isPrefetchFresh()
+                    || mPrefetchFailed) {
+                AsyncTask.execute(mUpdateSlice);
+            }
+            mPrefetchRequestedMs = -1;
+            mMainHandler.removeCallbacks(mExpirePrefetch);
+            if (mPrefetchCallbackRegistered) {
+                mPrefetchCallbackRegistered = false;
+            } else if (mUri != null) {
                 mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
             }
         }
@@ -97,33 +134,150 @@ public final class PreferenceSliceLiveData {
             super.setValue(slice);
         }
 
-        private final Runnable mUpdateSlice = new Runnable() {
+        /**
+         * Binds the slice on {@code executor} ahead of its first observer, which then receives
+         * it without binding again. Changes of the slice are tracked from now on, until the first
+         * observer comes or the prefetch expires. No-op if the slice is already observed or was
+         * just prefetched.
+         */
+        @MainThread
+        void prefetch(@NonNull Executor executor) {
+            if (mUri == null || hasActiveObservers() || isPrefetchFresh()) {
+                return;
+            }
+            mPrefetchRequestedMs = SystemClock.uptimeMillis();
+            mPrefetchFailed = false;
+            if (!mPrefetchCallbackRegistered) {
+                mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
+                mPrefetchCallbackRegistered = true;
+            }
+            mMainHandler.removeCallbacks(mExpirePrefetch);
+            mMainHandler.postDelayed(mExpirePrefetch, PREFETCH_TTL_MS);
+            mPrefetchQueued.set(true);
+            executor.execute(mPrefetchSlice);
+        }
+
+        /**
+         * Drops a prefetch that has not started yet.
+         */
+        @MainThread
+        void cancelPrefetch() {
+            if (mPrefetchQueued.compareAndSet(true, false)) {
+                expirePrefetch();
+            }
+        }
+
+        /**
+         * Drops any prefetch and the last slice. Called once the live data is no longer used.
+         */
+        @MainThread
+        void release() {
+            mPrefetchQueued.set(false);
+            expirePrefetch();
+            synchronized (this) {
+                mLastSlice = null;
+            }
+        }
+
+        /** Forgets the last prefetch, and stops tracking changes if nothing observes the slice. */
+        @MainThread
+        private void expirePrefetch() {
+            mMainHandler.removeCallbacks(mExpirePrefetch);
+            mPrefetchRequestedMs = -1;
+            if (mPrefetchCallbackRegistered) {
+                mPrefetchCallbackRegistered = false;
+                mSliceViewManager.unregisterSliceCallback(mUri, mSliceCallback);
+            }
+        }
+
+        /**
+         * Returns the last slice bound or received, which may not have been delivered yet.
+         */
+        synchronized Slice getLastSlice() {
+            return mLastSlice;
+        }
+
+        private boolean isPrefetchFresh() {
+            return mPrefetchRequestedMs >= 0
+                    && SystemClock.uptimeMillis() - mPrefetchRequestedMs < PREFETCH_TTL_MS;
+        }
+
+        private final Runnable mPrefetchSlice = new Runnable() {
             @Override
             public void run() {
-                try {
-                    Slice s = mUri != null ? mSliceViewManager.bindSlice(mUri)
-                            : mSliceViewManager.bindSlice(mIntent);
-                    if (mUri == null && s != null) {
-                        mUri = s.getUri();
-                        mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
+                if (mPrefetchQueued.compareAndSet(true, false)) {
+                    mPrefetchFailed = !bindSlice();
+                    if (mPrefetchFailed) {
+                        // An observer which came while binding relied on this prefetch.
+                        mMainHandler.post(() -> {
+                            if (hasActiveObservers()) {
+                                AsyncTask.execute(mUpdateSlice);
+                            }
+                        });
                     }
-                    postValue(s);
-                } catch (Exception e) {
-                    Log.e(TAG, "Error binding slice", e);
-                    postValue(null);
                 }
             }
         };
 
+        private final Runnable mUpdateSlice = this::bindSlice;
+
+        /** Binds the slice and posts it, returns whether a slice was bound. */
+        private boolean bindSlice() {
+            try {
+                long startMs = SystemClock.uptimeMillis();
+                Slice s = mUri != null ? mSliceViewManager.bindSlice(mUri)
+                        : mSliceViewManager.bindSlice(mIntent);
+                mMetrics.logBind(SystemClock.uptimeMillis() - startMs);
+                if (s != null && mBindCount++ % PARCEL_SIZE_SAMPLE_RATE == 0) {
+                    mMetrics.logParcelSize(getParcelSize(s));
+                }
+                if (mUri == null && s != null) {
+                    mUri = s.getUri();
+                    mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
+                }
+                postSlice(s);
+                return s != null;
+            } catch (Exception e) {
+                Log.e(TAG, "Error binding slice", e);
+                postValue(null);
+                return false;
+            }
+        }
+
+        /**
+         * Posts a new version of the slice, keeping the row instances of the previous version for
+         * rows whose content fingerprint did not change so that observers can skip them.
+         */
+        private void postSlice(Slice s) {
+            synchronized (this) {
+                if (s != null) {
+                    SliceFingerprint.shareUnchangedRows(mLastSlice, s);
+                }
+                mLastSlice = s;
+            }
+            postValue(s);
+        }
+
         final SliceViewManager.SliceCallback mSliceCallback =
                 new SliceViewManager.SliceCallback() {
                     @Override
                     public void onSliceUpdated(@NonNull Slice s) {
-                        postValue(s);
+                        mMetrics.logUpdate();
+                        postSlice(s);
                     }
                 };
     }
 
+    static int getParcelSize(Slice slice) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(slice.toBundle());
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
     private PreferenceSliceLiveData() {
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static android.app.slice.SliceItem.FORMAT_SLICE;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceItem;
+
+import java.util.ArrayList;
+
+/**
+ * Coalesces the steps of a {@link SliceSeekbarPreference} moved by the user into at most one burst
+ * of actions sent to the provider per {@link #SEND_INTERVAL_MS}. Providers handle one action per
+ * step, so a burst still holds one action per step, in order, each with the value it leads to.
+ * <p>
+ * The preference shows each step right away. Versions of the slice bound until the provider
+ * acknowledges the last value sent, by showing it, are meant to be deferred by the client, see
+ * {@link #shouldDefer(Slice)}, so that the seekbar does not jump back to intermediate values.
+ */
+final class SeekbarActionCoalescer {
+    /** Minimum time between two actions sent to the provider. */
+    static final long SEND_INTERVAL_MS = 200;
+    /** Time after which the last value sent is considered acknowledged anyway. */
+    static final long ACK_TIMEOUT_MS = 1000;
+
+    interface Callback {
+        /** Sends the step of {@code preference} to {@code value} to its provider. */
+        void sendValue(@NonNull SliceSeekbarPreference preference, int value);
+
+        /** Called when the last value sent was not acknowledged in time. */
+        void onAckTimeout();
+    }
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+    private final Runnable mSendRunnable = this::flush;
+    private final Runnable mAckTimeoutRunnable = this::onAckTimeout;
+
+    private SliceSeekbarPreference mPendingPreference;
+    // Values of the steps not sent yet, in order.
+    private final ArrayList<Integer> mPendingValues = new ArrayList<>();
+    private long mLastSentMs = -SEND_INTERVAL_MS;
+    private String mAwaitedKey;
+    private int mAwaitedValue;
+    private boolean mAwaiting;
+
+    SeekbarActionCoalescer(@NonNull Handler handler, @NonNull Callback callback) {
+        mHandler = handler;
+        mCallback = callback;
+    }
+
+    /**
+     * Records the step of {@code preference} to {@code value}, and sends the pending steps now if
+     * nothing was sent during the last interval, or when the interval elapses otherwise.
+     */
+    void onValueChanged(@NonNull SliceSeekbarPreference preference, int value) {
+        if (mPendingPreference != null && mPendingPreference != preference) {
+            flush();
+        }
+        mPendingPreference = preference;
+        mPendingValues.add(value);
+        long sendAtMs = mLastSentMs + SEND_INTERVAL_MS;
+        mHandler.removeCallbacks(mSendRunnable);
+        if (SystemClock.uptimeMillis() >= sendAtMs) {
+            flush();
+        } else {
+            mHandler.postAtTime(mSendRunnable, sendAtMs);
+        }
+    }
+
+    /**
+     * Sends the steps not sent yet, if any. To be called when the seekbar loses focus or the
+     * screen goes away.
+     */
+    void flush() {
+        mHandler.removeCallbacks(mSendRunnable);
+        SliceSeekbarPreference preference = mPendingPreference;
+        if (preference == null) {
+            return;
+        }
+        mPendingPreference = null;
+        mLastSentMs = SystemClock.uptimeMillis();
+        mAwaiting = true;
+        mAwaitedKey = preference.getKey();
+        mAwaitedValue = mPendingValues.get(mPendingValues.size() - 1);
+        mHandler.removeCallbacks(mAckTimeoutRunnable);
+        mHandler.postDelayed(mAckTimeoutRunnable, ACK_TIMEOUT_MS);
+        for (int i = 0; i < mPendingValues.size(); i++) {
+            mCallback.sendValue(preference, mPendingValues.get(i));
+        }
+        mPendingValues.clear();
+    }
+
+    /**
+     * Returns whether {@code slice} should not be shown yet, because values are still being sent
+     * or because it does not show the last value sent.
+     */
+    boolean shouldDefer(@NonNull Slice slice) {
+        if (mPendingPreference != null) {
+            return true;
+        }
+        if (!mAwaiting) {
+            return false;
+        }
+        if (!isAcknowledged(slice, mAwaitedKey, mAwaitedValue)) {
+            return true;
+        }
+        mAwaiting = false;
+        mHandler.removeCallbacks(mAckTimeoutRunnable);
+        return false;
+    }
+
+    private void onAckTimeout() {
+        if (mAwaiting) {
+            mAwaiting = false;
+            mCallback.onAckTimeout();
+        }
+    }
+
+    /**
+     * Returns whether the row of {@code key} in {@code slice} shows {@code value}. A slice
+     * without this row acknowledges any value.
+     */
+    private static boolean isAcknowledged(Slice slice, String key, int value) {
+        for (SliceItem item : slice.getItems()) {
+            if (FORMAT_SLICE.equals(item.getFormat())
+                    && TextUtils.equals(SlicePreferencesUtil.getKey(item), key)) {
+                return SlicePreferencesUtil.getSeekbarValue(item) == value;
+            }
+        }
+        return true;
+    }
+}
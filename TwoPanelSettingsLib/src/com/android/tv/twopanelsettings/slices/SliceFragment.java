@@ -16,6 +16,7 @@
 
 package com.android.tv.twopanelsettings.slices;
 
+import static android.app.slice.Slice.EXTRA_RANGE_VALUE;
 import static android.app.slice.Slice.EXTRA_TOGGLE_STATE;
 import static android.app.slice.Slice.HINT_PARTIAL;
 import static com.android.tv.twopanelsettings.slices.InstrumentationUtils.logEntrySelected;
@@ -28,16 +29,16 @@ import android.app.Activity;
 import android.app.PendingIntent;
 import android.app.PendingIntent.CanceledException;
 import android.app.tvsettings.TvSettingsEnums;
-import android.content.ContentProviderClient;
+import android.content.ContentResolver;
 import android.content.Intent;
 import android.content.IntentSender;
-import android.database.ContentObserver;
 import android.graphics.drawable.Icon;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Parcelable;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.ContextThemeWrapper;
@@ -56,6 +57,8 @@ import androidx.activity.result.IntentSenderRequest;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceManager;
@@ -66,18 +69,21 @@ import com.android.tv.twopanelsettings.R;
 import com.android.tv.twopanelsettings.TwoPanelSettingsFragment;
 import com.android.tv.twopanelsettings.TwoPanelSettingsFragment.SliceFragmentCallback;
 import com.android.tv.twopanelsettings.slices.PreferenceSliceLiveData.SliceLiveDataImpl;
-import com.android.tv.twopanelsettings.slices.SlicePreferencesUtil.Data;
+import com.android.tv.twopanelsettings.slices.base.SliceMetrics;
 import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceFingerprint;
 import com.android.tv.twopanelsettings.slices.compat.SliceItem;
+import com.android.tv.twopanelsettings.slices.compat.widget.EventInfo;
 import com.android.tv.twopanelsettings.slices.compat.widget.ListContent;
-import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * A screen presenting a slice in TV settings.
@@ -95,6 +101,12 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
     private static final String KEY_SCREEN_ICON = "key_screen_icon";
     private static final String KEY_LAST_PREFERENCE = "key_last_preference";
     private static final String KEY_URI_STRING = "key_uri_string";
+    /**
+     * Time given to the first bind before a placeholder is shown instead of the progress bar,
+     * about six frames at 60Hz.
+     */
+    private static final long BIND_DEADLINE_MS = 100;
+    private static Executor sModelExecutor;
     private ListContent mListContent;
     private Slice mSlice;
     private ContextThemeWrapper mContextThemeWrapper;
@@ -109,8 +121,35 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
     private Intent mFollowupPendingIntentExtrasCopy;
     private String mLastFocusedPreferenceKey;
     private boolean mIsMainPanelReady = true;
+    private SliceMetrics mSliceMetrics;
+    // Preference shown for each row of the last slice. Rows which are unchanged in the next
+    // version of the slice share their SliceItem instance, see SliceFingerprint.
+    private final IdentityHashMap<SliceItem, Preference> mRowPreferences = new IdentityHashMap<>();
+    // Structural hash of the last slice shown, or being built, for mAppliedScreen, see
+    // SliceFingerprint#hash.
+    private long mAppliedSliceHash = SliceFingerprint.NO_FINGERPRINT;
+    private PreferenceScreen mAppliedScreen;
+    // Incremented for every slice handed to the model executor, so that only the last is applied.
+    private int mUpdateGeneration;
 
     private final Handler mHandler = new Handler();
+    private final Runnable mBindDeadlineRunnable = this::onBindDeadlineMissed;
+    private final SeekbarActionCoalescer mSeekbarActions = new SeekbarActionCoalescer(mHandler,
+            new SeekbarActionCoalescer.Callback() {
+                @Override
+                public void sendValue(@NonNull SliceSeekbarPreference preference, int value) {
+                    sendSeekbarValue(preference, value);
+                }
+
+                @Override
+                public void onAckTimeout() {
+                    if (mSlice != null && isResumed()) {
+                        onChanged(mSlice);
+                    }
+                }
+            });
+    // Placeholder shown while the first bind is late, replaced by the rows of the slice.
+    private Preference mSkeletonPreference;
     private final ActivityResultLauncher<IntentSenderRequest> mActivityResultLauncher =
             registerForActivityResult(new ActivityResultContracts.StartIntentSenderForResult(),
                     new ActivityResultCallback<ActivityResult>() {
@@ -123,13 +162,8 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
                             mFollowupPendingIntentResultCode = result.getResultCode();
                         }
                     });
-    private final ContentObserver mContentObserver = new ContentObserver(new Handler()) {
-        @Override
-        public void onChange(boolean selfChange, Uri uri) {
-            handleUri(uri);
-            super.onChange(selfChange, uri);
-        }
-    };
+    // Delivers the slice and the changes of its status path as one update.
+    private SliceUpdatePipeline mUpdatePipeline;
 
     /** Callback for one panel settings fragment **/
     public interface OnePanelSliceFragmentContainer {
@@ -168,24 +202,52 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
 
         showProgressBar();
         if (!TextUtils.isEmpty(mUriString)) {
-            getSliceLiveData().observeForever(this);
+            startUpdatePipeline();
+            if (mSlice == null) {
+                mHandler.postDelayed(mBindDeadlineRunnable, BIND_DEADLINE_MS);
+            }
         }
         if (TextUtils.isEmpty(mScreenTitle)) {
             mScreenTitle = getArguments().getCharSequence(SlicesConstants.TAG_SCREEN_TITLE, "");
         }
         super.onResume();
         if (!TextUtils.isEmpty(mUriString)) {
-            getContext().getContentResolver().registerContentObserver(
-                    SlicePreferencesUtil.getStatusPath(mUriString), false, mContentObserver);
+            getSliceMetrics().logVisible();
         }
         fireFollowupPendingIntent();
     }
 
-    private SliceLiveDataImpl getSliceLiveData() {
+    private void startUpdatePipeline() {
+        if (mUpdatePipeline == null) {
+            mUpdatePipeline = new SliceUpdatePipeline(getContext().getContentResolver(), mHandler,
+                    new SliceUpdatePipeline.Callback() {
+                        @Override
+                        public void onSliceUpdate(@NonNull Slice slice) {
+                            onChanged(slice);
+                        }
+
+                        @Override
+                        public void onStatusUpdate(@NonNull Uri statusUri) {
+                            handleUri(statusUri);
+                        }
+                    });
+        }
+        mUpdatePipeline.start(getSliceLiveData(), SlicePreferencesUtil.getStatusPath(mUriString));
+    }
+
+    @VisibleForTesting
+    LiveData<Slice> getSliceLiveData() {
         return ContextSingleton.getInstance()
                 .getSliceLiveData(getActivity(), Uri.parse(mUriString));
     }
 
+    private SliceMetrics getSliceMetrics() {
+        if (mSliceMetrics == null) {
+            mSliceMetrics = new SliceMetrics(getContext(), Uri.parse(mUriString));
+        }
+        return mSliceMetrics;
+    }
+
     private void fireFollowupPendingIntent() {
         if (mFollowupPendingIntentExtras == null) {
             return;
@@ -223,9 +285,15 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
     @Override
     public void onPause() {
         super.onPause();
+        mHandler.removeCallbacks(mBindDeadlineRunnable);
+        mSeekbarActions.flush();
         hideProgressBar();
-        getContext().getContentResolver().unregisterContentObserver(mContentObserver);
-        getSliceLiveData().removeObserver(this);
+        if (mUpdatePipeline != null) {
+            mUpdatePipeline.stop();
+        }
+        if (mSliceMetrics != null) {
+            mSliceMetrics.logHidden();
+        }
     }
 
     @Override
@@ -240,100 +308,118 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
 
     }
 
-    private boolean isUriValid(String uri) {
-        if (uri == null) {
-            return false;
-        }
-        ContentProviderClient client =
-                getContext().getContentResolver().acquireContentProviderClient(Uri.parse(uri));
-        if (client != null) {
-            client.close();
-            return true;
-        } else {
-            return false;
+    /**
+     * Builds the model of {@code slice} in the background, then applies it to the screen unless
+     * a newer slice arrived in the meantime.
+     */
+    private void requestUpdate(Slice slice, PreferenceScreen screen) {
+        int generation = ++mUpdateGeneration;
+        ListContent previous = mListContent;
+        Set<SliceItem> keptRows = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SliceItem item : mRowPreferences.keySet()) {
+            if (getUnchangedRowPreference(item, screen) != null) {
+                keptRows.add(item);
+            }
         }
+        ContentResolver contentResolver = getContext().getContentResolver();
+        ContextThemeWrapper contextThemeWrapper = mContextThemeWrapper;
+        boolean isTwoPanel = getParentFragment() instanceof TwoPanelSettingsFragment;
+        getUpdateExecutor().execute(() -> {
+            SliceScreenModel model = SliceScreenModel.build(slice, previous, keptRows,
+                    contentResolver, contextThemeWrapper, isTwoPanel);
+            mHandler.post(() -> {
+                if (generation != mUpdateGeneration) {
+                    return;
+                }
+                if (!isAdded() || getPreferenceScreen() != screen) {
+                    invalidateAppliedSlice();
+                    return;
+                }
+                update(model);
+                getSliceMetrics().logUpdateApplied();
+            });
+        });
     }
 
-    private void update() {
-        mListContent = new ListContent(mSlice);
+    @VisibleForTesting
+    void update(SliceScreenModel model) {
+        mListContent = model.mListContent;
+        removeSkeleton();
         PreferenceScreen preferenceScreen =
                 getPreferenceManager().getPreferenceScreen();
 
-        if (preferenceScreen == null) {
+        if (preferenceScreen == null || !model.mHasRows) {
             return;
         }
 
-        List<SliceContent> items = mListContent.getRowItems();
-        if (items == null || items.size() == 0) {
-            return;
+        if (model.mRedirectUri != null) {
+            getSliceMetrics().logHidden();
+            mSliceMetrics = null;
+            mUriString = model.mRedirectUri;
+            mRowPreferences.clear();
+            startUpdatePipeline();
+            getSliceMetrics().logVisible();
         }
 
-        SliceItem redirectSliceItem = SlicePreferencesUtil.getRedirectSlice(items);
-        String redirectSlice = null;
-        if (redirectSliceItem != null) {
-            Data data = SlicePreferencesUtil.extract(redirectSliceItem);
-            CharSequence title = SlicePreferencesUtil.getText(data.mTitleItem);
-            if (!TextUtils.isEmpty(title)) {
-                redirectSlice = title.toString();
-            }
-        }
-        if (isUriValid(redirectSlice)) {
-            getSliceLiveData().removeObserver(this);
-            getContext().getContentResolver().unregisterContentObserver(mContentObserver);
-            mUriString = redirectSlice;
-            getSliceLiveData().observeForever(this);
-            getContext().getContentResolver().registerContentObserver(
-                    SlicePreferencesUtil.getStatusPath(mUriString), false, mContentObserver);
-        }
-
-        SliceItem screenTitleItem = SlicePreferencesUtil.getScreenTitleItem(items);
-        if (screenTitleItem == null) {
+        if (!model.mHasScreenTitle) {
             setTitle(mScreenTitle);
         } else {
-            Data data = SlicePreferencesUtil.extract(screenTitleItem);
-            mCurrentPageId = SlicePreferencesUtil.getPageId(screenTitleItem);
-            CharSequence title = SlicePreferencesUtil.getText(data.mTitleItem);
-            if (!TextUtils.isEmpty(title)) {
-                setTitle(title);
-                mScreenTitle = title;
+            mCurrentPageId = model.mPageId;
+            if (!TextUtils.isEmpty(model.mTitle)) {
+                setTitle(model.mTitle);
+                mScreenTitle = model.mTitle;
             } else {
                 setTitle(mScreenTitle);
             }
+            setSubtitle(model.mSubtitle);
+            setIcon(model.mIcon);
+        }
 
-            CharSequence subtitle = SlicePreferencesUtil.getText(data.mSubtitleItem);
-            setSubtitle(subtitle);
+        CharSequence defaultFocusedKey = model.mFocusedKey;
 
-            Icon icon = SlicePreferencesUtil.getIcon(data.mStartItem);
-            setIcon(icon);
+        List<Preference> newPrefs = new ArrayList<>();
+        List<SliceItem> newPrefItems = new ArrayList<>();
+        String className = getClass().getCanonicalName();
+        Preference[] keptPrefs = new Preference[model.mRows.size()];
+        // Preferences of the screen which changed rows are set up in, instead of new ones.
+        ArrayMap<String, Preference> recyclable =
+                new ArrayMap<>(preferenceScreen.getPreferenceCount());
+        for (int i = 0; i < preferenceScreen.getPreferenceCount(); i++) {
+            Preference pref = preferenceScreen.getPreference(i);
+            if (pref.getKey() != null) {
+                recyclable.put(pref.getKey(), pref);
+            }
         }
-
-        SliceItem focusedPrefItem = SlicePreferencesUtil.getFocusedPreferenceItem(items);
-        CharSequence defaultFocusedKey = null;
-        if (focusedPrefItem != null) {
-            Data data = SlicePreferencesUtil.extract(focusedPrefItem);
-            CharSequence title = SlicePreferencesUtil.getText(data.mTitleItem);
-            if (!TextUtils.isEmpty(title)) {
-                defaultFocusedKey = title;
+        for (int i = 0; i < model.mRows.size(); i++) {
+            keptPrefs[i] = getUnchangedRowPreference(model.mRows.get(i).mItem, preferenceScreen);
+            if (keptPrefs[i] != null) {
+                recyclable.remove(keptPrefs[i].getKey());
             }
         }
-
-        List<Preference> newPrefs = new ArrayList<>();
-        for (SliceContent contentItem : items) {
-            SliceItem item = contentItem.getSliceItem();
-            if (SlicesConstants.TYPE_PREFERENCE.equals(item.getSubType())
-                    || SlicesConstants.TYPE_PREFERENCE_CATEGORY.equals(item.getSubType())
-                    || SlicesConstants.TYPE_PREFERENCE_EMBEDDED_PLACEHOLDER.equals(
-                            item.getSubType())) {
-                Preference preference =
-                        SlicePreferencesUtil.getPreference(
-                                item, mContextThemeWrapper, getClass().getCanonicalName(),
-                                getParentFragment() instanceof TwoPanelSettingsFragment);
-                if (preference != null) {
-                    newPrefs.add(preference);
-                }
+        for (int i = 0; i < model.mRows.size(); i++) {
+            SliceScreenModel.Row row = model.mRows.get(i);
+            SliceItem item = row.mItem;
+            Preference preference = keptPrefs[i];
+            if (preference == null && row.mData != null) {
+                preference = SlicePreferencesUtil.getPreference(item, row.mData, row.mIcon,
+                        mContextThemeWrapper, className, recyclable);
+            } else if (preference == null) {
+                // The preference kept for the row was removed while the model was built.
+                preference = SlicePreferencesUtil.getPreference(
+                        item, mContextThemeWrapper, className,
+                        getParentFragment() instanceof TwoPanelSettingsFragment);
+            }
+            if (preference != null) {
+                newPrefs.add(preference);
+                newPrefItems.add(item);
             }
         }
-        updatePreferenceScreen(preferenceScreen, newPrefs);
+        Map<Preference, Preference> newToOld = updatePreferenceScreen(preferenceScreen, newPrefs);
+        mRowPreferences.clear();
+        for (int i = 0; i < newPrefs.size(); i++) {
+            Preference oldPref = newToOld.get(newPrefs.get(i));
+            mRowPreferences.put(newPrefItems.get(i), oldPref != null ? oldPref : newPrefs.get(i));
+        }
         if (defaultFocusedKey != null) {
             scrollToPreference(defaultFocusedKey.toString());
         } else if (mLastFocusedPreferenceKey != null) {
@@ -381,100 +467,33 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
         }
     }
 
-    private void updatePreferenceScreen(PreferenceScreen screen, List<Preference> newPrefs) {
-        // Remove all the preferences in the screen that satisfy such three cases:
-        // (a) Preference without key
-        // (b) Preference with key which does not appear in the new list.
-        // (c) Preference with key which does appear in the new list, but the preference has changed
-        // ability to handle slices and needs to be replaced instead of re-used.
-        int index = 0;
-        IdentityHashMap<Preference, Preference> newToOld = new IdentityHashMap<>();
-        while (index < screen.getPreferenceCount()) {
-            boolean needToRemoveCurrentPref = true;
-            Preference oldPref = screen.getPreference(index);
-            for (Preference newPref : newPrefs) {
-                if (isSamePreference(oldPref, newPref)) {
-                    needToRemoveCurrentPref = false;
-                    newToOld.put(newPref, oldPref);
-                    break;
-                }
-            }
-
-            if (needToRemoveCurrentPref) {
-                screen.removePreference(oldPref);
-            } else {
-                index++;
-            }
-        }
-
-        Map<Integer, Boolean> twoStatePreferenceIsCheckedByOrder = new HashMap<>();
-        for (int i = 0; i < newPrefs.size(); i++) {
-            if (newPrefs.get(i) instanceof TwoStatePreference) {
-                twoStatePreferenceIsCheckedByOrder.put(
-                        i, ((TwoStatePreference) newPrefs.get(i)).isChecked());
-            }
+    /**
+     * Returns the preference currently shown for a row which did not change since the last update,
+     * or null if the row has to be turned into a new preference.
+     */
+    private Preference getUnchangedRowPreference(SliceItem item, PreferenceScreen screen) {
+        Preference preference = mRowPreferences.get(item);
+        if (preference == null || preference.getKey() == null || preference.getParent() != screen) {
+            return null;
         }
-
-        //Iterate the new preferences list and give each preference a correct order
-        for (int i = 0; i < newPrefs.size(); i++) {
-            Preference newPref = newPrefs.get(i);
-            // If the newPref has a key and has a corresponding old preference, update the old
-            // preference and give it a new order.
-
-            Preference oldPref = newToOld.get(newPref);
-            if (oldPref == null) {
-                newPref.setOrder(i);
-                screen.addPreference(newPref);
-                continue;
-            }
-
-            oldPref.setOrder(i);
-            if (oldPref instanceof EmbeddedSlicePreference) {
-                // EmbeddedSlicePreference has its own slice observer
-                // (EmbeddedSlicePreferenceHelper). Should therefore not be updated by
-                // slice observer in SliceFragment.
-                // The order will however still need to be updated, as this can not be handled
-                // by EmbeddedSlicePreferenceHelper.
-                continue;
-            }
-
-            oldPref.setIcon(newPref.getIcon());
-            oldPref.setTitle(newPref.getTitle());
-            oldPref.setSummary(newPref.getSummary());
-            oldPref.setEnabled(newPref.isEnabled());
-            oldPref.setSelectable(newPref.isSelectable());
-            oldPref.setFragment(newPref.getFragment());
-            oldPref.getExtras().putAll(newPref.getExtras());
-            if ((oldPref instanceof HasSliceAction)
-                    && (newPref instanceof HasSliceAction)) {
-                ((HasSliceAction) oldPref)
-                        .setSliceAction(
-                                ((HasSliceAction) newPref).getSliceAction());
-            }
-            if ((oldPref instanceof HasSliceUri)
-                    && (newPref instanceof HasSliceUri)) {
-                ((HasSliceUri) oldPref)
-                        .setUri(((HasSliceUri) newPref).getUri());
-            }
-            if ((oldPref instanceof HasCustomContentDescription)
-                    && (newPref instanceof HasCustomContentDescription)) {
-                ((HasCustomContentDescription) oldPref).setContentDescription(
-                        ((HasCustomContentDescription) newPref)
-                                .getContentDescription());
-            }
+        // The state of these may have been changed by the user without the slice changing, in
+        // which case they need to be reset from the slice.
+        if (preference instanceof TwoStatePreference
+                || preference instanceof SliceSeekbarPreference) {
+            return null;
         }
+        return preference;
+    }
 
-        //addPreference will reset the checked status of TwoStatePreference.
-        //So we need to add them back
-        for (int i = 0; i < screen.getPreferenceCount(); i++) {
-            Preference screenPref = screen.getPreference(i);
-            if (screenPref instanceof TwoStatePreference
-                    && twoStatePreferenceIsCheckedByOrder.get(screenPref.getOrder()) != null) {
-                ((TwoStatePreference) screenPref)
-                        .setChecked(twoStatePreferenceIsCheckedByOrder.get(screenPref.getOrder()));
-            }
-        }
+    /**
+     * Updates the screen to show {@code newPrefs}, and returns the preferences of the screen
+     * which were kept and updated in place, keyed by the new preference they replace.
+     */
+    private Map<Preference, Preference> updatePreferenceScreen(PreferenceScreen screen,
+            List<Preference> newPrefs) {
+        Map<Preference, Preference> newToOld = PreferenceScreenDiff.apply(screen, newPrefs);
         removeAnimationClipping(getView());
+        return newToOld;
     }
 
     protected void removeAnimationClipping(View v) {
@@ -488,51 +507,40 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
         }
     }
 
-    private static boolean isSamePreference(Preference oldPref, Preference newPref) {
-        if (oldPref == null || newPref == null) {
-            return false;
-        }
-
-        if (newPref instanceof HasSliceUri != oldPref instanceof HasSliceUri) {
-            return false;
-        }
-
-        if (newPref instanceof EmbeddedSlicePreference) {
-            return oldPref instanceof EmbeddedSlicePreference
-                    && Objects.equals(((EmbeddedSlicePreference) newPref).getUri(),
-                    ((EmbeddedSlicePreference) oldPref).getUri());
-        } else if (oldPref instanceof EmbeddedSlicePreference) {
-            return false;
-        }
-
-        return newPref.getKey() != null && newPref.getKey().equals(oldPref.getKey());
-    }
-
     @Override
     public void onPreferenceFocused(Preference preference) {
         setLastFocused(preference);
+        mSeekbarActions.flush();
     }
 
     @Override
     public void onSeekbarPreferenceChanged(SliceSeekbarPreference preference, int addValue) {
+        invalidateAppliedSlice();
         int curValue = preference.getValue();
         if((addValue > 0 && curValue < preference.getMax()) ||
            (addValue < 0 && curValue > preference.getMin())) {
             preference.setValue(curValue + addValue);
+            logTouch(EventInfo.ACTION_TYPE_SLIDER, preference);
+            mSeekbarActions.onValueChanged(preference, curValue + addValue);
+        }
+    }
 
-            try {
-                Intent fillInIntent =
-                        new Intent()
-                                .putExtra(EXTRA_PREFERENCE_KEY, preference.getKey());
-                firePendingIntent((HasSliceAction) preference, fillInIntent);
-            } catch (Exception e) {
-                Log.e(TAG, "PendingIntent for slice cannot be sent", e);
-            }
+    private void sendSeekbarValue(SliceSeekbarPreference preference, int value) {
+        try {
+            Intent fillInIntent =
+                    new Intent()
+                            .putExtra(EXTRA_PREFERENCE_KEY, preference.getKey())
+                            .putExtra(EXTRA_RANGE_VALUE, value);
+            firePendingIntent((HasSliceAction) preference, fillInIntent);
+        } catch (Exception e) {
+            Log.e(TAG, "PendingIntent for slice cannot be sent", e);
         }
     }
 
     @Override
     public boolean onPreferenceTreeClick(Preference preference) {
+        // The preference may now show a state which the next slice has to reset.
+        invalidateAppliedSlice();
         if (preference instanceof SliceRadioPreference) {
             SliceRadioPreference radioPref = (SliceRadioPreference) preference;
             if (!radioPref.isChecked()) {
@@ -543,6 +551,7 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
             }
 
             logEntrySelected(getPreferenceActionId(preference));
+            logTouch(EventInfo.ACTION_TYPE_SELECTION, preference);
             Intent fillInIntent = new Intent().putExtra(EXTRA_PREFERENCE_KEY, preference.getKey());
 
             boolean result = firePendingIntent(radioPref, fillInIntent);
@@ -558,6 +567,7 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
                 ((TwoPanelSettingsFragment) getParentFragment()).refocusPreference(this);
             }
             logToggleInteracted(getPreferenceActionId(preference), isChecked);
+            logTouch(EventInfo.ACTION_TYPE_TOGGLE, preference);
             Intent fillInIntent =
                     new Intent()
                             .putExtra(EXTRA_TOGGLE_STATE, isChecked)
@@ -572,6 +582,7 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
             if (getPreferenceActionId(preference) != TvSettingsEnums.ENTRY_DEFAULT) {
                 logEntrySelected(getPreferenceActionId(preference));
             }
+            logTouch(EventInfo.ACTION_TYPE_BUTTON, preference);
             Intent fillInIntent =
                     new Intent().putExtra(EXTRA_PREFERENCE_KEY, preference.getKey());
             if (firePendingIntent((HasSliceAction) preference, fillInIntent)) {
@@ -582,6 +593,16 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
         return super.onPreferenceTreeClick(preference);
     }
 
+    private void logTouch(int actionType, Preference preference) {
+        if (TextUtils.isEmpty(mUriString)) {
+            return;
+        }
+        String subSliceUri = preference instanceof HasSliceUri
+                ? ((HasSliceUri) preference).getUri() : null;
+        getSliceMetrics().logTouch(actionType,
+                Uri.parse(TextUtils.isEmpty(subSliceUri) ? mUriString : subSliceUri));
+    }
+
     private boolean firePendingIntent(@NonNull HasSliceAction preference, Intent fillInIntent) {
         if (preference.getSliceAction() == null) {
             return false;
@@ -632,14 +653,85 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
         if (slice == null || slice.getHints() == null) {
             return;
         }
+        mHandler.removeCallbacks(mBindDeadlineRunnable);
+        if (mSeekbarActions.shouldDefer(slice)) {
+            // Applied once the provider shows the last value sent for the seekbar moved by the
+            // user, or when it times out.
+            return;
+        }
 
         if (slice.getHints().contains(HINT_PARTIAL)) {
             showProgressBar();
         } else {
             hideProgressBar();
         }
+        PreferenceScreen screen = getPreferenceScreen();
+        if (screen == null) {
+            return;
+        }
+        long hash = SliceFingerprint.hash(slice);
+        if (hash == mAppliedSliceHash && screen == mAppliedScreen) {
+            // Providers often send the same slice again, e.g. when it is pinned again or on a
+            // status path notification.
+            getSliceMetrics().logUpdateSkipped();
+            return;
+        }
         mIsMainPanelReady = false;
-        update();
+        mAppliedSliceHash = hash;
+        mAppliedScreen = screen;
+        requestUpdate(slice, screen);
+    }
+
+    /** Returns the executor the models of the slices are built on. */
+    @VisibleForTesting
+    Executor getUpdateExecutor() {
+        return getModelExecutor();
+    }
+
+    private static synchronized Executor getModelExecutor() {
+        if (sModelExecutor == null) {
+            sModelExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+        }
+        return sModelExecutor;
+    }
+
+    private void invalidateAppliedSlice() {
+        mAppliedSliceHash = SliceFingerprint.NO_FINGERPRINT;
+    }
+
+    /**
+     * Called when the first bind is late. A slice cached by the shared live data is delivered as
+     * soon as the fragment observes it, so there is nothing to show here but a skeleton built from
+     * the preference which opened this screen, until the slice arrives.
+     */
+    private void onBindDeadlineMissed() {
+        if (mSlice != null || !isResumed()) {
+            return;
+        }
+        getSliceMetrics().logBindDeadlineMissed();
+        PreferenceScreen screen = getPreferenceScreen();
+        if (screen == null || screen.getPreferenceCount() > 0 || getArguments() == null) {
+            return;
+        }
+        CharSequence summary = getArguments().getCharSequence(SlicesConstants.TAG_SCREEN_SUMMARY);
+        mSkeletonPreference = new Preference(mContextThemeWrapper);
+        mSkeletonPreference.setTitle(mScreenTitle);
+        mSkeletonPreference.setSummary(summary);
+        // Not selectable, so that focus does not land on it and jump once the slice arrives.
+        mSkeletonPreference.setSelectable(false);
+        mSkeletonPreference.setPersistent(false);
+        screen.addPreference(mSkeletonPreference);
+        hideProgressBar();
+    }
+
+    private void removeSkeleton() {
+        if (mSkeletonPreference != null) {
+            PreferenceScreen screen = getPreferenceScreen();
+            if (screen != null) {
+                screen.removePreference(mSkeletonPreference);
+            }
+            mSkeletonPreference = null;
+        }
     }
 
     private void showProgressBar() {
@@ -787,6 +879,11 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
         return mScreenTitle;
     }
 
+    /** Returns the uri of the slice shown by this fragment. */
+    public String getUri() {
+        return mUriString;
+    }
+
     @Override
     protected int getPageId() {
         return mCurrentPageId != 0 ? mCurrentPageId : TvSettingsEnums.PAGE_SLICE_DEFAULT;
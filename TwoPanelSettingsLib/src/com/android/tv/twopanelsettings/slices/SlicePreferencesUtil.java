@@ -48,8 +48,10 @@ import android.text.TextUtils;
 import android.util.Pair;
 import android.view.ContextThemeWrapper;
 
+import androidx.annotation.Nullable;
 import androidx.core.graphics.drawable.IconCompat;
 import androidx.preference.Preference;
+import androidx.preference.TwoStatePreference;
 
 import com.android.tv.twopanelsettings.IconUtil;
 import com.android.tv.twopanelsettings.R;
@@ -61,6 +63,7 @@ import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Generate corresponding preference based upon the slice data.
@@ -69,11 +72,27 @@ public final class SlicePreferencesUtil {
 
     static Preference getPreference(SliceItem item, ContextThemeWrapper contextThemeWrapper,
             String className, boolean isTwoPanel) {
-        Preference preference = null;
         if (item == null) {
             return null;
         }
         Data data = extract(item);
+        return getPreference(item, data, loadIcon(item, data, contextThemeWrapper, isTwoPanel),
+                contextThemeWrapper, className, null);
+    }
+
+    /**
+     * Generates the preference of a row from its already extracted {@code data} and already
+     * loaded {@code icon}, see {@link #loadIcon}.
+     *
+     * @param recyclable preferences currently shown, by key. If not null, a preference of the
+     *                   same key and type as the one needed for the row is removed from it and
+     *                   updated in place instead of allocating a new one.
+     */
+    static Preference getPreference(SliceItem item, Data data, Drawable icon,
+            ContextThemeWrapper contextThemeWrapper, String className,
+            @Nullable Map<String, Preference> recyclable) {
+        Preference preference = null;
+        boolean recycled = false;
         if (item.getSubType() != null) {
             String subType = item.getSubType();
             if (subType.equals(SlicesConstants.TYPE_PREFERENCE)
@@ -81,15 +100,25 @@ public final class SlicePreferencesUtil {
                     || subType.equals(SlicesConstants.TYPE_PREFERENCE_EMBEDDED_PLACEHOLDER)) {
                 // TODO: Figure out all the possible cases and reorganize the logic
                 if (data.mInfoItems.size() > 0) {
-                    preference = new InfoPreference(
+                    preference = recycle(recyclable, item, InfoPreference.class, false);
+                    recycled = preference != null;
+                    if (preference == null) {
+                        preference = new InfoPreference(
                                 contextThemeWrapper, getInfoList(data.mInfoItems));
+                    } else {
+                        ((InfoPreference) preference).setInfoList(getInfoList(data.mInfoItems));
+                    }
                 } else if (data.mIntentItem != null) {
                     SliceActionImpl action = new SliceActionImpl(data.mIntentItem);
                     if (action != null) {
                         // Currently if we don't set icon for the SliceAction, slice lib will
                         // automatically treat it as a toggle. To distinguish preference action and
                         // toggle action, we need to add a subtype if this is a preference action.
-                        preference = new SlicePreference(contextThemeWrapper);
+                        preference = recycle(recyclable, item, SlicePreference.class, false);
+                        recycled = preference != null;
+                        if (preference == null) {
+                            preference = new SlicePreference(contextThemeWrapper);
+                        }
                         ((SlicePreference) preference).setSliceAction(action);
                         ((SlicePreference) preference).setActionId(getActionId(item));
                         if (data.mFollowupIntentItem != null) {
@@ -104,26 +133,53 @@ public final class SlicePreferencesUtil {
                         int buttonStyle = SlicePreferencesUtil.getButtonStyle(item);
                         switch (buttonStyle) {
                             case CHECKMARK :
-                                preference = new SliceCheckboxPreference(
-                                        contextThemeWrapper, action);
+                                preference = recycleTwoState(recyclable, item,
+                                        SliceCheckboxPreference.class, action);
+                                recycled = preference != null;
+                                if (preference == null) {
+                                    preference = new SliceCheckboxPreference(
+                                            contextThemeWrapper, action);
+                                }
                                 break;
                             case SWITCH :
-                                preference = new SliceSwitchPreference(contextThemeWrapper, action);
+                                preference = recycleTwoState(recyclable, item,
+                                        SliceSwitchPreference.class, action);
+                                recycled = preference != null;
+                                if (preference == null) {
+                                    preference = new SliceSwitchPreference(
+                                            contextThemeWrapper, action);
+                                }
                                 break;
                             case RADIO:
-                                preference = new SliceRadioPreference(contextThemeWrapper, action);
-                                preference.setLayoutResource(R.layout.preference_reversed_widget);
-                                if (getRadioGroup(item) != null) {
+                                preference = recycleTwoState(recyclable, item,
+                                        SliceRadioPreference.class, action);
+                                recycled = preference != null;
+                                if (preference == null) {
+                                    preference = new SliceRadioPreference(
+                                            contextThemeWrapper, action);
+                                    preference.setLayoutResource(
+                                            R.layout.preference_reversed_widget);
+                                }
+                                CharSequence radioGroup = getRadioGroup(item);
+                                if (radioGroup != null || recycled) {
                                     ((SliceRadioPreference) preference).setRadioGroup(
-                                            getRadioGroup(item).toString());
+                                            radioGroup != null ? radioGroup.toString() : null);
                                 }
                                 break;
                             case SEEKBAR :
                                 int min = SlicePreferencesUtil.getSeekbarMin(item);
                                 int max = SlicePreferencesUtil.getSeekbarMax(item);
                                 int value = SlicePreferencesUtil.getSeekbarValue(item);
-                                preference = new SliceSeekbarPreference(
-                                        contextThemeWrapper, action, min, max, value);
+                                preference = recycle(recyclable, item,
+                                        SliceSeekbarPreference.class, false);
+                                recycled = preference != null;
+                                if (preference == null) {
+                                    preference = new SliceSeekbarPreference(
+                                            contextThemeWrapper, action, min, max, value);
+                                } else {
+                                    ((SliceSeekbarPreference) preference).setSliceAction(action);
+                                    ((SliceSeekbarPreference) preference).update(min, max, value);
+                                }
                                 break;
                         }
                         if (preference instanceof HasSliceAction) {
@@ -140,18 +196,29 @@ public final class SlicePreferencesUtil {
 
                 CharSequence uri = getText(data.mTargetSliceItem);
                 if (uri == null || TextUtils.isEmpty(uri)) {
+                    if (preference == null) {
+                        preference = recycle(recyclable, item,
+                                CustomContentDescriptionPreference.class, false);
+                        recycled = preference != null;
+                    }
                     if (preference == null) {
                         preference = new CustomContentDescriptionPreference(contextThemeWrapper);
                     }
                 } else {
                     if (preference == null) {
+                        boolean hasEndIcon = hasEndIcon(data.mHasEndIconItem);
                         if (subType.equals(SlicesConstants.TYPE_PREFERENCE_EMBEDDED_PLACEHOLDER)) {
                             preference = new EmbeddedSlicePreference(contextThemeWrapper,
                                     String.valueOf(uri));
                         } else {
-                            preference = new SlicePreference(contextThemeWrapper);
+                            preference = recycle(recyclable, item, SlicePreference.class,
+                                    hasEndIcon);
+                            recycled = preference != null;
+                            if (preference == null) {
+                                preference = new SlicePreference(contextThemeWrapper);
+                            }
                         }
-                        if (hasEndIcon(data.mHasEndIconItem)) {
+                        if (hasEndIcon) {
                             preference.setLayoutResource(R.layout.preference_reversed_icon);
                         }
                     }
@@ -162,7 +229,13 @@ public final class SlicePreferencesUtil {
                     preference.setFragment(className);
                 }
             } else if (item.getSubType().equals(SlicesConstants.TYPE_PREFERENCE_CATEGORY)) {
-                preference = new CustomContentDescriptionPreferenceCategory(contextThemeWrapper);
+                preference = recycle(recyclable, item,
+                        CustomContentDescriptionPreferenceCategory.class, false);
+                recycled = preference != null;
+                if (preference == null) {
+                    preference = new CustomContentDescriptionPreferenceCategory(
+                            contextThemeWrapper);
+                }
             }
         }
 
@@ -171,10 +244,14 @@ public final class SlicePreferencesUtil {
             // Set whether preference is enabled.
             if (preference instanceof InfoPreference || !isEnabled) {
                 preference.setEnabled(false);
+            } else if (recycled) {
+                preference.setEnabled(true);
             }
             // Set whether preference is selectable
             if (!selectable(item) || !isEnabled) {
                 preference.setSelectable(false);
+            } else if (recycled) {
+                preference.setSelectable(true);
             }
             // Set the key for the preference
             CharSequence key = getKey(item);
@@ -182,19 +259,11 @@ public final class SlicePreferencesUtil {
                 preference.setKey(key.toString());
             }
 
-            Icon icon = getIcon(data.mStartItem);
-            if (icon != null) {
-                boolean isIconNeedToBeProcessed =
-                        SlicePreferencesUtil.isIconNeedsToBeProcessed(item);
-                Drawable iconDrawable = icon.loadDrawable(contextThemeWrapper);
-                if (isIconNeedToBeProcessed && isTwoPanel) {
-                    preference.setIcon(IconUtil.getCompoundIcon(contextThemeWrapper, iconDrawable));
-                } else {
-                    preference.setIcon(iconDrawable);
-                }
+            if (icon != null || recycled) {
+                preference.setIcon(icon);
             }
 
-            if (data.mTitleItem != null) {
+            if (data.mTitleItem != null || recycled) {
                 preference.setTitle(getText(data.mTitleItem));
             }
 
@@ -206,7 +275,7 @@ public final class SlicePreferencesUtil {
             if (subtitleExists) {
                 preference.setSummary(subtitle);
             } else {
-                if (data.mSummaryItem != null) {
+                if (data.mSummaryItem != null || recycled) {
                     preference.setSummary(getText(data.mSummaryItem));
                 }
             }
@@ -276,6 +345,74 @@ public final class SlicePreferencesUtil {
         return preference;
     }
 
+    /**
+     * Removes the preference of exactly {@code type} shown for the key of {@code item} from
+     * {@code recyclable} and returns it, with the fields which are only set for some rows reset.
+     * Returns null if there is no such preference.
+     *
+     * @param reversedIcon whether the preference needs the layout with the icon at the end.
+     */
+    @Nullable
+    private static <T extends Preference> T recycle(@Nullable Map<String, Preference> recyclable,
+            SliceItem item, Class<T> type, boolean reversedIcon) {
+        if (recyclable == null) {
+            return null;
+        }
+        CharSequence key = getKey(item);
+        Preference preference = key != null ? recyclable.get(key.toString()) : null;
+        if (preference == null || preference.getClass() != type
+                || (preference.getLayoutResource() == R.layout.preference_reversed_icon)
+                        != reversedIcon) {
+            return null;
+        }
+        recyclable.remove(key.toString());
+        preference.setFragment(null);
+        preference.getExtras().clear();
+        if (preference instanceof HasSliceUri) {
+            ((HasSliceUri) preference).setUri(null);
+        }
+        if (preference instanceof HasSliceAction) {
+            ((HasSliceAction) preference).setSliceAction(null);
+            ((HasSliceAction) preference).setFollowupSliceAction(null);
+        }
+        if (preference instanceof HasCustomContentDescription) {
+            ((HasCustomContentDescription) preference).setContentDescription(null);
+        }
+        return type.cast(preference);
+    }
+
+    /**
+     * Like {@link #recycle}, for preferences with a checked state, which is reset to the one of
+     * {@code action}.
+     */
+    @Nullable
+    private static <T extends TwoStatePreference> T recycleTwoState(
+            @Nullable Map<String, Preference> recyclable, SliceItem item, Class<T> type,
+            SliceActionImpl action) {
+        T preference = recycle(recyclable, item, type, false);
+        if (preference != null) {
+            ((HasSliceAction) preference).setSliceAction(action);
+            preference.setChecked(action.isChecked());
+        }
+        return preference;
+    }
+
+    /**
+     * Loads the icon of a row, processed for the two panel layout if needed. Does not need to be
+     * called on the main thread.
+     */
+    static Drawable loadIcon(SliceItem item, Data data, ContextThemeWrapper contextThemeWrapper,
+            boolean isTwoPanel) {
+        Icon icon = getIcon(data.mStartItem);
+        if (icon == null) {
+            return null;
+        }
+        if (isTwoPanel && isIconNeedsToBeProcessed(item)) {
+            return IconUtil.getCompoundIcon(contextThemeWrapper, icon);
+        }
+        return icon.loadDrawable(contextThemeWrapper);
+    }
+
     static class Data {
         SliceItem mStartItem;
         SliceItem mTitleItem;
@@ -365,7 +502,7 @@ public final class SlicePreferencesUtil {
         return infoList;
     }
 
-    private static CharSequence getKey(SliceItem item) {
+    static CharSequence getKey(SliceItem item) {
         SliceItem target = SliceQuery.findSubtype(item, FORMAT_TEXT, SlicesConstants.TAG_KEY);
         return target != null ? target.getText() : null;
     }
@@ -469,7 +606,7 @@ public final class SlicePreferencesUtil {
         return -1;
     }
 
-    private static int getSeekbarValue(SliceItem sliceItem) {
+    static int getSeekbarValue(SliceItem sliceItem) {
         List<SliceItem> items = sliceItem.getSlice().getItems();
         for (SliceItem item : items)  {
             if (item.getSubType() != null
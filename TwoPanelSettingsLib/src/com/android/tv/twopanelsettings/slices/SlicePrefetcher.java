@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.text.TextUtils;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceGroupAdapter;
+
+import com.android.tv.twopanelsettings.slices.PreferenceSliceLiveData.SliceLiveDataImpl;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceViewManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts binding the slices behind the focused preference and its neighbors as soon as focus
+ * lands, so that the {@link SliceFragment} created for the preview panel receives an already
+ * bound slice from {@link ContextSingleton} instead of showing a spinner.
+ * <p>
+ * When the user enters a top level slice, {@link #prefetchSubtree(Uri)} can also bind its children
+ * as listed by {@link SliceViewManager#getSliceDescendants(Uri)}, within a memory budget, so that
+ * going deeper into the section finds them already bound. The slices it bound are kept until
+ * {@link #cancelSubtree()}, which releases those that are not observed.
+ * <p>
+ * Binds run one at a time on a background priority thread. Prefetches that have not started
+ * when focus moves to other preferences, or when the user leaves the section, are dropped.
+ */
+public class SlicePrefetcher {
+    private static final String TAG = "SlicePrefetcher";
+    private static final boolean DEBUG = false;
+    /** Number of preferences prefetched on each side of the focused one. */
+    private static final int NEIGHBOR_COUNT = 1;
+    /** Maximum number of children bound by a subtree prefetch. */
+    private static final int MAX_SUBTREE_CHILDREN = 8;
+    /** Maximum parceled size of the slices bound by a subtree prefetch. */
+    private static final int SUBTREE_BUDGET_BYTES =
+            ActivityManager.isLowRamDeviceStatic() ? 64 * 1024 : 256 * 1024;
+
+    private static Executor sLaneExecutor;
+
+    private final Context mContext;
+    private ArraySet<SliceLiveDataImpl> mQueued = new ArraySet<>();
+    private ArraySet<SliceLiveDataImpl> mScratch = new ArraySet<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Incremented whenever a subtree prefetch starts or is cancelled.
+    private final AtomicInteger mSubtreeGeneration = new AtomicInteger();
+    private Uri mSubtreeRoot;
+    // Slices prefetched for the current subtree, released when it is cancelled.
+    private final ArraySet<Uri> mSubtreeUris = new ArraySet<>();
+    // Bytes of the slices retained for the current subtree. Only accessed on the lane thread.
+    private int mSubtreeBytes;
+
+    public SlicePrefetcher(@NonNull Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Prefetches the slices of {@code focused} and of the preferences next to it in
+     * {@code adapter}, and drops the queued prefetches of preferences that lost focus.
+     */
+    @MainThread
+    public void onPreferenceFocused(@NonNull Preference focused,
+            @Nullable PreferenceGroupAdapter adapter) {
+        ArraySet<SliceLiveDataImpl> wanted = mScratch;
+        prefetch(focused, wanted);
+        int position = adapter != null ? adapter.getPreferenceAdapterPosition(focused) : -1;
+        if (position >= 0) {
+            int start = Math.max(0, position - NEIGHBOR_COUNT);
+            int end = Math.min(adapter.getItemCount() - 1, position + NEIGHBOR_COUNT);
+            for (int i = start; i <= end; i++) {
+                if (i != position) {
+                    prefetch(adapter.getItem(i), wanted);
+                }
+            }
+        }
+        for (int i = 0; i < mQueued.size(); i++) {
+            if (!wanted.contains(mQueued.valueAt(i))) {
+                mQueued.valueAt(i).cancelPrefetch();
+            }
+        }
+        mQueued.clear();
+        mScratch = mQueued;
+        mQueued = wanted;
+    }
+
+    /**
+     * Drops all prefetches that have not started yet.
+     */
+    @MainThread
+    public void cancelAll() {
+        for (int i = 0; i < mQueued.size(); i++) {
+            mQueued.valueAt(i).cancelPrefetch();
+        }
+        mQueued.clear();
+    }
+
+    /**
+     * Binds the children of the top level slice {@code root}, unless its subtree is already
+     * being prefetched. Cancels the prefetch of any other subtree.
+     */
+    @MainThread
+    public void prefetchSubtree(@NonNull Uri root) {
+        if (root.equals(mSubtreeRoot)) {
+            return;
+        }
+        cancelSubtree();
+        mSubtreeRoot = root;
+        int generation = mSubtreeGeneration.get();
+        ContextSingleton.getInstance().grantFullAccess(mContext, root);
+        getLaneExecutor().execute(() -> {
+            if (generation != mSubtreeGeneration.get()) {
+                return;
+            }
+            mSubtreeBytes = 0;
+            List<Uri> children;
+            try {
+                children = getChildren(root,
+                        SliceViewManager.getInstance(mContext).getSliceDescendants(root));
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to get descendants of " + root, e);
+                return;
+            }
+            mMainHandler.post(() -> prefetchChildren(generation, children));
+        });
+    }
+
+    /**
+     * Drops the subtree prefetch in progress, if any, and releases the slices it bound that are
+     * not observed.
+     */
+    @MainThread
+    public void cancelSubtree() {
+        if (mSubtreeRoot != null) {
+            if (DEBUG) {
+                Log.d(TAG, "cancel subtree " + mSubtreeRoot + ", releasing " + mSubtreeUris);
+            }
+            mSubtreeRoot = null;
+            mSubtreeGeneration.incrementAndGet();
+            ContextSingleton singleton = ContextSingleton.getInstance();
+            for (int i = 0; i < mSubtreeUris.size(); i++) {
+                singleton.releaseSliceLiveData(mSubtreeUris.valueAt(i));
+            }
+            mSubtreeUris.clear();
+        }
+    }
+
+    private void prefetchChildren(int generation, List<Uri> children) {
+        if (generation != mSubtreeGeneration.get()) {
+            return;
+        }
+        ContextSingleton singleton = ContextSingleton.getInstance();
+        for (Uri child : children) {
+            SliceLiveDataImpl liveData = singleton.getSliceLiveData(mContext, child);
+            if (liveData.getLastSlice() != null) {
+                continue;
+            }
+            if (DEBUG) {
+                Log.d(TAG, "prefetch child " + child);
+            }
+            mSubtreeUris.add(child);
+            liveData.prefetch(r -> getLaneExecutor().execute(
+                    () -> runSubtreePrefetch(generation, child, liveData, r)));
+        }
+    }
+
+    private void runSubtreePrefetch(int generation, Uri uri, SliceLiveDataImpl liveData,
+            Runnable bind) {
+        if (generation != mSubtreeGeneration.get()) {
+            return;
+        }
+        if (mSubtreeBytes >= SUBTREE_BUDGET_BYTES) {
+            // Over budget, let the live data bind normally if it gets observed.
+            mMainHandler.post(() -> releaseChild(generation, uri, liveData));
+            return;
+        }
+        bind.run();
+        Slice slice = liveData.getLastSlice();
+        if (slice != null) {
+            mSubtreeBytes += PreferenceSliceLiveData.getParcelSize(slice);
+        }
+    }
+
+    private void releaseChild(int generation, Uri uri, SliceLiveDataImpl liveData) {
+        liveData.cancelPrefetch();
+        if (generation == mSubtreeGeneration.get() && mSubtreeUris.remove(uri)) {
+            ContextSingleton.getInstance().releaseSliceLiveData(uri);
+        }
+    }
+
+    /**
+     * Returns the uris directly under {@code root} among its {@code descendants}, or the first
+     * descendants if the provider does not organize its slices by path.
+     */
+    private static List<Uri> getChildren(Uri root, Collection<Uri> descendants) {
+        List<String> rootSegments = root.getPathSegments();
+        List<Uri> children = new ArrayList<>();
+        List<Uri> others = new ArrayList<>();
+        for (Uri uri : descendants) {
+            if (uri.equals(root) || !TextUtils.equals(uri.getAuthority(), root.getAuthority())) {
+                continue;
+            }
+            List<String> segments = uri.getPathSegments();
+            if (segments.size() == rootSegments.size() + 1
+                    && segments.subList(0, rootSegments.size()).equals(rootSegments)) {
+                children.add(uri);
+            } else {
+                others.add(uri);
+            }
+        }
+        List<Uri> result = children.isEmpty() ? others : children;
+        return result.size() > MAX_SUBTREE_CHILDREN
+                ? result.subList(0, MAX_SUBTREE_CHILDREN) : result;
+    }
+
+    private void prefetch(@Nullable Preference pref, ArraySet<SliceLiveDataImpl> wanted) {
+        String uriString = getPrefetchUri(pref);
+        if (uriString == null) {
+            return;
+        }
+        Uri uri = Uri.parse(uriString);
+        ContextSingleton singleton = ContextSingleton.getInstance();
+        singleton.grantFullAccess(mContext, uri);
+        SliceLiveDataImpl liveData = singleton.getSliceLiveData(mContext, uri);
+        if (DEBUG) {
+            Log.d(TAG, "prefetch " + uri);
+        }
+        liveData.prefetch(getLaneExecutor());
+        wanted.add(liveData);
+    }
+
+    /**
+     * Returns the uri of the slice shown in the preview panel for {@code pref}, or null if the
+     * preview of this preference is not a slice.
+     */
+    @Nullable
+    private static String getPrefetchUri(@Nullable Preference pref) {
+        if (!(pref instanceof HasSliceUri) || !pref.isEnabled() || pref.getFragment() == null
+                || InfoFragment.class.getCanonicalName().equals(pref.getFragment())) {
+            return null;
+        }
+        String uri = ((HasSliceUri) pref).getUri();
+        return TextUtils.isEmpty(uri) ? null : uri;
+    }
+
+    private static synchronized Executor getLaneExecutor() {
+        if (sLaneExecutor == null) {
+            sLaneExecutor = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                r.run();
+            }, TAG));
+        }
+        return sLaneExecutor;
+    }
+}
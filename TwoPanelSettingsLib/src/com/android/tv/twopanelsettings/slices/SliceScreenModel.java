@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.content.ContentProviderClient;
+import android.content.ContentResolver;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.view.ContextThemeWrapper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.tv.twopanelsettings.slices.SlicePreferencesUtil.Data;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceItem;
+import com.android.tv.twopanelsettings.slices.compat.widget.ListContent;
+import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What {@link SliceFragment} shows for a slice: the screen title, the redirect and focus targets,
+ * and a row for each preference with its content extracted and its icon loaded.
+ * <p>
+ * Built off the main thread by {@link #build}, so that the main thread only has to turn the rows
+ * into preferences and apply them to the screen.
+ */
+final class SliceScreenModel {
+
+    /** A preference row of the slice. */
+    static final class Row {
+        final SliceItem mItem;
+        // Null if the row is shown by a preference which is kept as is.
+        @Nullable
+        final Data mData;
+        @Nullable
+        final Drawable mIcon;
+
+        private Row(SliceItem item, @Nullable Data data, @Nullable Drawable icon) {
+            mItem = item;
+            mData = data;
+            mIcon = icon;
+        }
+    }
+
+    final ListContent mListContent;
+    // Whether the slice has any row. Nothing else is set if not.
+    final boolean mHasRows;
+    // Uri of the slice to show instead, if the slice redirects to a valid one.
+    @Nullable
+    final String mRedirectUri;
+    final boolean mHasScreenTitle;
+    final int mPageId;
+    @Nullable
+    final CharSequence mTitle;
+    @Nullable
+    final CharSequence mSubtitle;
+    @Nullable
+    final Icon mIcon;
+    @Nullable
+    final CharSequence mFocusedKey;
+    final List<Row> mRows;
+
+    private SliceScreenModel(ListContent listContent, boolean hasRows, String redirectUri,
+            boolean hasScreenTitle, int pageId, CharSequence title, CharSequence subtitle,
+            Icon icon, CharSequence focusedKey, List<Row> rows) {
+        mListContent = listContent;
+        mHasRows = hasRows;
+        mRedirectUri = redirectUri;
+        mHasScreenTitle = hasScreenTitle;
+        mPageId = pageId;
+        mTitle = title;
+        mSubtitle = subtitle;
+        mIcon = icon;
+        mFocusedKey = focusedKey;
+        mRows = rows;
+    }
+
+    /**
+     * Builds the model of {@code slice}.
+     *
+     * @param previous the list content of the previous version of the slice, if any.
+     * @param keptRows rows of the previous version shown by a preference which can be kept as
+     *                 is. Their content is not extracted again.
+     */
+    @WorkerThread
+    static SliceScreenModel build(@NonNull Slice slice, @Nullable ListContent previous,
+            @NonNull Set<SliceItem> keptRows, @NonNull ContentResolver contentResolver,
+            @NonNull ContextThemeWrapper contextThemeWrapper, boolean isTwoPanel) {
+        ListContent listContent = new ListContent(slice, previous);
+        List<SliceContent> items = listContent.getRowItems();
+        if (items == null || items.size() == 0) {
+            return new SliceScreenModel(listContent, false, null, false, 0, null, null, null,
+                    null, Collections.emptyList());
+        }
+
+        SliceItem redirectSliceItem = SlicePreferencesUtil.getRedirectSlice(items);
+        String redirectSlice = null;
+        if (redirectSliceItem != null) {
+            Data data = SlicePreferencesUtil.extract(redirectSliceItem);
+            CharSequence title = SlicePreferencesUtil.getText(data.mTitleItem);
+            if (!TextUtils.isEmpty(title)) {
+                redirectSlice = title.toString();
+            }
+        }
+        if (!isUriValid(contentResolver, redirectSlice)) {
+            redirectSlice = null;
+        }
+
+        SliceItem screenTitleItem = SlicePreferencesUtil.getScreenTitleItem(items);
+        int pageId = 0;
+        CharSequence title = null;
+        CharSequence subtitle = null;
+        Icon icon = null;
+        if (screenTitleItem != null) {
+            Data data = SlicePreferencesUtil.extract(screenTitleItem);
+            pageId = SlicePreferencesUtil.getPageId(screenTitleItem);
+            title = SlicePreferencesUtil.getText(data.mTitleItem);
+            subtitle = SlicePreferencesUtil.getText(data.mSubtitleItem);
+            icon = SlicePreferencesUtil.getIcon(data.mStartItem);
+        }
+
+        SliceItem focusedPrefItem = SlicePreferencesUtil.getFocusedPreferenceItem(items);
+        CharSequence focusedKey = null;
+        if (focusedPrefItem != null) {
+            Data data = SlicePreferencesUtil.extract(focusedPrefItem);
+            CharSequence focusedTitle = SlicePreferencesUtil.getText(data.mTitleItem);
+            if (!TextUtils.isEmpty(focusedTitle)) {
+                focusedKey = focusedTitle;
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(items.size());
+        for (SliceContent contentItem : items) {
+            SliceItem item = contentItem.getSliceItem();
+            if (!SlicesConstants.TYPE_PREFERENCE.equals(item.getSubType())
+                    && !SlicesConstants.TYPE_PREFERENCE_CATEGORY.equals(item.getSubType())
+                    && !SlicesConstants.TYPE_PREFERENCE_EMBEDDED_PLACEHOLDER.equals(
+                            item.getSubType())) {
+                continue;
+            }
+            if (keptRows.contains(item)) {
+                rows.add(new Row(item, null, null));
+                continue;
+            }
+            Data data = SlicePreferencesUtil.extract(item);
+            rows.add(new Row(item, data,
+                    SlicePreferencesUtil.loadIcon(item, data, contextThemeWrapper, isTwoPanel)));
+        }
+        return new SliceScreenModel(listContent, true, redirectSlice, screenTitleItem != null,
+                pageId, title, subtitle, icon, focusedKey, Collections.unmodifiableList(rows));
+    }
+
+    private static boolean isUriValid(ContentResolver contentResolver, String uri) {
+        if (uri == null) {
+            return false;
+        }
+        ContentProviderClient client = contentResolver.acquireContentProviderClient(
+                Uri.parse(uri));
+        if (client != null) {
+            client.close();
+            return true;
+        } else {
+            return false;
+        }
+    }
+}
@@ -67,9 +67,16 @@ public class SliceSeekbarPreference extends SeekBarPreference implements HasSlic
         mFollowupSliceAction = sliceAction;
     }
 
-    private void update(int min, int max, int value) {
-        this.setMin(min);
-        this.setMax(max);
+    /** Sets the range and value of the seekbar. */
+    public void update(int min, int max, int value) {
+        // Each bound is clamped to the other one, so move the one out of the way first.
+        if (min > getMax()) {
+            this.setMax(max);
+            this.setMin(min);
+        } else {
+            this.setMin(min);
+            this.setMax(max);
+        }
         this.setValue(value);
     }
 }
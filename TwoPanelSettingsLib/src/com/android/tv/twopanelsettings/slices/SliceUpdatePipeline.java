@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the notifications a slice screen receives, new versions of the slice and changes of its
+ * status path, into a single debounced update.
+ * <p>
+ * Providers commonly notify both the slice and its status path for one change, and may notify
+ * several times in a row. Everything received within {@link #DEBOUNCE_MS} of the last
+ * notification, and at most {@link #MAX_DELAY_MS} after the first one, is delivered at once: the
+ * latest slice first, then each distinct status uri.
+ */
+@MainThread
+final class SliceUpdatePipeline {
+    /** Quiet time after a notification before the pending update is delivered. */
+    static final long DEBOUNCE_MS = 32;
+    /** Maximum time a notification waits for the update to be delivered. */
+    static final long MAX_DELAY_MS = 100;
+
+    interface Callback {
+        /** Called with the latest version of the slice. */
+        void onSliceUpdate(@NonNull Slice slice);
+
+        /** Called with a status uri of the slice, after the slice it came with. */
+        void onStatusUpdate(@NonNull Uri statusUri);
+    }
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler;
+    private final Callback mCallback;
+    private final Runnable mDeliverRunnable = this::deliver;
+
+    private LiveData<Slice> mSliceData;
+    private boolean mObserved;
+    // Whether a slice was delivered since start. The first one is not delayed.
+    private boolean mDelivered;
+    private Slice mPendingSlice;
+    private final List<Uri> mPendingStatuses = new ArrayList<>();
+    // Uptime of the first notification not delivered yet, or -1.
+    private long mFirstPendingMs = -1;
+
+    private final Observer<Slice> mSliceObserver = new Observer<Slice>() {
+        @Override
+        public void onChanged(Slice slice) {
+            if (slice == null) {
+                return;
+            }
+            mPendingSlice = slice;
+            if (!mDelivered) {
+                deliver();
+            } else {
+                schedule();
+            }
+        }
+    };
+
+    private final ContentObserver mStatusObserver;
+
+    SliceUpdatePipeline(@NonNull ContentResolver contentResolver, @NonNull Handler handler,
+            @NonNull Callback callback) {
+        mContentResolver = contentResolver;
+        mHandler = handler;
+        mCallback = callback;
+        mStatusObserver = new ContentObserver(handler) {
+            @Override
+            public void onChange(boolean selfChange, Uri uri) {
+                if (uri == null) {
+                    return;
+                }
+                if (!mPendingStatuses.contains(uri)) {
+                    mPendingStatuses.add(uri);
+                }
+                schedule();
+            }
+        };
+    }
+
+    /**
+     * Starts delivering the updates of {@code sliceData} and of {@code statusUri}, instead of
+     * those it was started with before, if any.
+     */
+    void start(@NonNull LiveData<Slice> sliceData, @NonNull Uri statusUri) {
+        stop();
+        mSliceData = sliceData;
+        mContentResolver.registerContentObserver(statusUri, false, mStatusObserver);
+        mObserved = true;
+        // Delivers the slice already bound, if any, right away.
+        sliceData.observeForever(mSliceObserver);
+    }
+
+    /** Stops observing, and drops the update not delivered yet. */
+    void stop() {
+        mHandler.removeCallbacks(mDeliverRunnable);
+        mPendingSlice = null;
+        mPendingStatuses.clear();
+        mFirstPendingMs = -1;
+        mDelivered = false;
+        if (mObserved) {
+            mObserved = false;
+            mSliceData.removeObserver(mSliceObserver);
+            mContentResolver.unregisterContentObserver(mStatusObserver);
+            mSliceData = null;
+        }
+    }
+
+    private void schedule() {
+        long now = SystemClock.uptimeMillis();
+        if (mFirstPendingMs < 0) {
+            mFirstPendingMs = now;
+        }
+        mHandler.removeCallbacks(mDeliverRunnable);
+        mHandler.postAtTime(mDeliverRunnable,
+                Math.min(now + DEBOUNCE_MS, mFirstPendingMs + MAX_DELAY_MS));
+    }
+
+    private void deliver() {
+        mHandler.removeCallbacks(mDeliverRunnable);
+        mFirstPendingMs = -1;
+        Slice slice = mPendingSlice;
+        mPendingSlice = null;
+        Uri[] statuses = mPendingStatuses.toArray(new Uri[0]);
+        mPendingStatuses.clear();
+        if (slice != null) {
+            mDelivered = true;
+            mCallback.onSliceUpdate(slice);
+        }
+        for (Uri status : statuses) {
+            if (!mObserved) {
+                // Stopped by the callback.
+                return;
+            }
+            mCallback.onStatusUpdate(status);
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.android.tv.twopanelsettings.slices;
 
 import androidx.annotation.IntDef;
 
+import com.android.tv.twopanelsettings.slices.base.SliceProvider;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
@@ -33,8 +35,9 @@ public final class SlicesConstants {
             "TYPE_PREFERENCE_EMBEDDED_PLACEHOLDER";
     public static final String TYPE_FOCUSED_PREFERENCE = "TYPE_FOCUSED_PREFERENCE";
     public static final String TYPE_REDIRECTED_SLICE_URI = "TYPE_REDIRECTED_SLICE_URI";
-    public static final String TAG_TARGET_URI = "TAG_TARGET_URI";
+    public static final String TAG_TARGET_URI = SliceProvider.SUBTYPE_TARGET_URI;
     public static final String TAG_SCREEN_TITLE = "TAG_SCREEN_TITLE";
+    public static final String TAG_SCREEN_SUMMARY = "TAG_SCREEN_SUMMARY";
     public static final String TAG_KEY = "TAG_KEY";
     public static final String TAG_RADIO_GROUP = "TAG_RADIO_GROUP";
     public static final String SUBTYPE_INTENT = "SUBTYPE_INTENT";
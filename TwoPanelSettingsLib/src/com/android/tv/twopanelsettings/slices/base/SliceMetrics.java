@@ -18,35 +18,80 @@ package com.android.tv.twopanelsettings.slices.base;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.SystemClock;
+import android.util.SparseIntArray;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Metrics interface for slices.
  *
  * This is called by SliceView, so Slice developers should
  * not need to reference this class.
  *
+ * <p>Events are aggregated per slice uri in a bounded, process-wide in-memory store which can be
+ * printed with {@link #dump(String, PrintWriter)}.
+ *
  * @see androidx.slice.widget.SliceView
  */
 public class SliceMetrics {
 
+    /** Maximum number of slice uris for which aggregates are kept. */
+    private static final int MAX_TRACKED_URIS = 64;
+    private static final long MINUTE_MS = 60 * 1000;
+    /** Upper bounds (exclusive) of the bind latency histogram buckets, in milliseconds. */
+    private static final long[] BIND_LATENCY_BUCKETS_MS = {16, 50, 100, 250, 500, 1000, 2000};
+
+    private static final Object sLock = new Object();
+    @GuardedBy("sLock")
+    private static final LinkedHashMap<Uri, UriStats> sStats =
+            new LinkedHashMap<Uri, UriStats>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Uri, UriStats> eldest) {
+                    return size() > MAX_TRACKED_URIS;
+                }
+            };
+
+    private final Uri mUri;
+    private long mVisibleSinceMs = -1;
+
     /**
      * An object to be used throughout the life of a slice to register events.
      */
     public SliceMetrics(@NonNull Context context, @NonNull Uri uri) {
+        mUri = uri;
     }
 
     /**
      * To be called whenever the slice becomes visible to the user.
      */
     public void logVisible() {
+        if (mVisibleSinceMs < 0) {
+            mVisibleSinceMs = SystemClock.uptimeMillis();
+        }
     }
 
     /**
      * To be called whenever the slice becomes invisible to the user.
      */
     public void logHidden() {
+        if (mVisibleSinceMs < 0) {
+            return;
+        }
+        long visibleMs = SystemClock.uptimeMillis() - mVisibleSinceMs;
+        mVisibleSinceMs = -1;
+        synchronized (sLock) {
+            UriStats stats = getOrCreateStats(mUri);
+            stats.mTotalVisibleMs += visibleMs;
+            stats.mVisibleCount++;
+        }
     }
 
     /**
@@ -60,8 +105,203 @@ public class SliceMetrics {
      * @see androidx.slice.widget.EventInfo#actionType
      *
      * @param actionType The type of the event.
-     * @param subSlice The URI of the sub-slice that is the subject of the interaction.
+     * @param subSlice The URI of the sub-slice that is the subject of the interaction. The action
+     *                 is recorded under it, so that the actions of each row can be told apart.
      */
     public void logTouch(int actionType, @NonNull Uri subSlice) {
+        synchronized (sLock) {
+            SparseIntArray actions = getOrCreateStats(subSlice).mActions;
+            actions.put(actionType, actions.get(actionType) + 1);
+        }
+    }
+
+    /**
+     * To be called when a bind of the slice has completed.
+     *
+     * @param latencyMs Time spent between requesting the slice and receiving it.
+     */
+    public void logBind(long latencyMs) {
+        synchronized (sLock) {
+            UriStats stats = getOrCreateStats(mUri);
+            int bucket = 0;
+            while (bucket < BIND_LATENCY_BUCKETS_MS.length
+                    && latencyMs >= BIND_LATENCY_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            stats.mBindLatencyHistogram[bucket]++;
+            stats.mBindCount++;
+            stats.mTotalBindLatencyMs += latencyMs;
+            stats.mMaxBindLatencyMs = Math.max(stats.mMaxBindLatencyMs, latencyMs);
+        }
+    }
+
+    /**
+     * To be called when the first bind of the slice did not complete within the deadline of the
+     * client, which then showed a placeholder instead.
+     */
+    public void logBindDeadlineMissed() {
+        synchronized (sLock) {
+            getOrCreateStats(mUri).mBindDeadlineMissCount++;
+        }
+    }
+
+    /**
+     * To be called with the size of the slice when it is parceled.
+     *
+     * @param bytes Size of the parceled slice, in bytes.
+     */
+    public void logParcelSize(int bytes) {
+        synchronized (sLock) {
+            UriStats stats = getOrCreateStats(mUri);
+            stats.mLastParcelSize = bytes;
+            stats.mMaxParcelSize = Math.max(stats.mMaxParcelSize, bytes);
+        }
+    }
+
+    /**
+     * To be called whenever an updated version of the slice is delivered to the client.
+     */
+    public void logUpdate() {
+        long now = SystemClock.uptimeMillis();
+        synchronized (sLock) {
+            UriStats stats = getOrCreateStats(mUri);
+            if (now - stats.mMinuteStartMs >= MINUTE_MS) {
+                stats.mMinuteStartMs = now;
+                stats.mUpdatesInMinute = 0;
+            }
+            stats.mUpdatesInMinute++;
+            stats.mPeakUpdatesPerMinute =
+                    Math.max(stats.mPeakUpdatesPerMinute, stats.mUpdatesInMinute);
+            stats.mUpdateCount++;
+        }
+    }
+
+    /**
+     * To be called when the client rendered an updated version of the slice.
+     */
+    public void logUpdateApplied() {
+        synchronized (sLock) {
+            getOrCreateStats(mUri).mAppliedUpdateCount++;
+        }
+    }
+
+    /**
+     * To be called when the client skipped rendering an updated version of the slice because its
+     * content was identical to the one already shown.
+     */
+    public void logUpdateSkipped() {
+        synchronized (sLock) {
+            getOrCreateStats(mUri).mSkippedUpdateCount++;
+        }
+    }
+
+    /**
+     * Prints the aggregated metrics of all tracked slice uris.
+     */
+    public static void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        List<Map.Entry<Uri, UriStats>> entries;
+        synchronized (sLock) {
+            entries = new ArrayList<>(sStats.size());
+            for (Map.Entry<Uri, UriStats> entry : sStats.entrySet()) {
+                entries.add(Map.entry(entry.getKey(), entry.getValue().copy()));
+            }
+        }
+        writer.print(prefix);
+        writer.println("SliceMetrics (" + entries.size() + " uris):");
+        for (Map.Entry<Uri, UriStats> entry : entries) {
+            entry.getValue().dump(prefix + "  ", entry.getKey(), writer);
+        }
+    }
+
+    @GuardedBy("sLock")
+    private static UriStats getOrCreateStats(Uri uri) {
+        UriStats stats = sStats.get(uri);
+        if (stats == null) {
+            stats = new UriStats();
+            sStats.put(uri, stats);
+        }
+        return stats;
+    }
+
+    private static final class UriStats {
+        final long[] mBindLatencyHistogram = new long[BIND_LATENCY_BUCKETS_MS.length + 1];
+        long mBindCount;
+        long mTotalBindLatencyMs;
+        long mMaxBindLatencyMs;
+        int mBindDeadlineMissCount;
+        int mLastParcelSize;
+        int mMaxParcelSize;
+        long mUpdateCount;
+        long mMinuteStartMs;
+        int mUpdatesInMinute;
+        int mPeakUpdatesPerMinute;
+        long mAppliedUpdateCount;
+        long mSkippedUpdateCount;
+        long mTotalVisibleMs;
+        int mVisibleCount;
+        SparseIntArray mActions = new SparseIntArray();
+
+        UriStats copy() {
+            UriStats copy = new UriStats();
+            System.arraycopy(mBindLatencyHistogram, 0, copy.mBindLatencyHistogram, 0,
+                    mBindLatencyHistogram.length);
+            copy.mBindCount = mBindCount;
+            copy.mTotalBindLatencyMs = mTotalBindLatencyMs;
+            copy.mMaxBindLatencyMs = mMaxBindLatencyMs;
+            copy.mBindDeadlineMissCount = mBindDeadlineMissCount;
+            copy.mLastParcelSize = mLastParcelSize;
+            copy.mMaxParcelSize = mMaxParcelSize;
+            copy.mUpdateCount = mUpdateCount;
+            copy.mMinuteStartMs = mMinuteStartMs;
+            copy.mUpdatesInMinute = mUpdatesInMinute;
+            copy.mPeakUpdatesPerMinute = mPeakUpdatesPerMinute;
+            copy.mAppliedUpdateCount = mAppliedUpdateCount;
+            copy.mSkippedUpdateCount = mSkippedUpdateCount;
+            copy.mTotalVisibleMs = mTotalVisibleMs;
+            copy.mVisibleCount = mVisibleCount;
+            copy.mActions = mActions.clone();
+            return copy;
+        }
+
+        void dump(String prefix, Uri uri, PrintWriter writer) {
+            writer.print(prefix);
+            writer.println(uri);
+            writer.print(prefix);
+            writer.print("  binds=" + mBindCount);
+            if (mBindCount > 0) {
+                writer.print(" avgMs=" + (mTotalBindLatencyMs / mBindCount)
+                        + " maxMs=" + mMaxBindLatencyMs);
+            }
+            writer.print(" deadlineMisses=" + mBindDeadlineMissCount);
+            writer.println();
+            writer.print(prefix);
+            writer.print("  bindLatencyHistogram=");
+            for (int i = 0; i < mBindLatencyHistogram.length; i++) {
+                writer.print(i < BIND_LATENCY_BUCKETS_MS.length
+                        ? "<" + BIND_LATENCY_BUCKETS_MS[i] : ">=" + BIND_LATENCY_BUCKETS_MS[i - 1]);
+                writer.print(":" + mBindLatencyHistogram[i] + " ");
+            }
+            writer.println();
+            writer.print(prefix);
+            writer.println("  parcelBytes last=" + mLastParcelSize + " max=" + mMaxParcelSize);
+            boolean currentMinute =
+                    SystemClock.uptimeMillis() - mMinuteStartMs < MINUTE_MS;
+            writer.print(prefix);
+            writer.println("  updates=" + mUpdateCount
+                    + " lastMinute=" + (currentMinute ? mUpdatesInMinute : 0)
+                    + " peakPerMinute=" + mPeakUpdatesPerMinute
+                    + " applied=" + mAppliedUpdateCount
+                    + " skipped=" + mSkippedUpdateCount);
+            writer.print(prefix);
+            writer.println("  visibleMs=" + mTotalVisibleMs + " shown=" + mVisibleCount);
+            if (mActions.size() > 0) {
+                writer.print(prefix);
+                writer.print("  actions=");
+                for (int i = 0; i < mActions.size(); i++) {
+                    writer.print(mActions.keyAt(i) + ":" + mActions.valueAt(i) + " ");
+                }
+                writer.println();
+            }
+        }
     }
 }
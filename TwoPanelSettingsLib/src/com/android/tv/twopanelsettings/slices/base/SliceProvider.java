@@ -17,6 +17,7 @@ package com.android.tv.twopanelsettings.slices.base;
 
 import android.app.PendingIntent;
 import android.app.slice.Slice;
+import android.app.slice.SliceItem;
 import android.app.slice.SliceSpec;
 import android.content.ContentProvider;
 import android.content.ContentResolver;
@@ -39,13 +40,21 @@ import android.os.StrictMode.ThreadPolicy;
 import android.util.ArraySet;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * A SliceProvider allows an app to provide content to be displayed in system spaces. This content
@@ -109,16 +118,43 @@ public abstract class SliceProvider extends ContentProvider {
     public static final String EXTRA_SLICE_DESCENDANTS = "slice_descendants";
     public static final String EXTRA_PKG = "pkg";
     public static final String EXTRA_RESULT = "result";
+    /** Subtype of the text items holding the uri of a child slice of a preference slice. */
+    public static final String SUBTYPE_TARGET_URI = "TAG_TARGET_URI";
 
     private static final boolean DEBUG = false;
 
     private static final long SLICE_BIND_ANR = 2000;
+    private static final int MAX_CACHED_SLICES = 16;
     private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
     private final String[] mAutoGrantPermissions;
 
     private String mCallback;
     private SliceManager mSliceManager;
 
+    private final Object mSliceCacheLock = new Object();
+    // In access order, least recently used first.
+    @GuardedBy("mSliceCacheLock")
+    private final LinkedHashMap<Uri, CachedSlice> mSliceCache =
+            new LinkedHashMap<Uri, CachedSlice>(MAX_CACHED_SLICES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Uri, CachedSlice> eldest) {
+                    return size() > MAX_CACHED_SLICES;
+                }
+            };
+    /** Incremented on every invalidation so that binds racing with a change are not cached. */
+    @GuardedBy("mSliceCacheLock")
+    private long mSliceCacheGeneration;
+    private boolean mSliceCacheEnabled;
+    @GuardedBy("mPendingWarmUps")
+    private final ArraySet<Uri> mPendingWarmUps = new ArraySet<>();
+    private SliceUpdateThrottle mUpdateThrottle;
+    private final ContentObserver mSliceCacheObserver = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            invalidateCachedSlices(uri);
+        }
+    };
+
     /**
      * A version of constructing a SliceProvider that allows autogranting slice permissions
      * to apps that hold specific platform permissions.
@@ -143,6 +179,56 @@ public abstract class SliceProvider extends ContentProvider {
     public void attachInfo(Context context, ProviderInfo info) {
         super.attachInfo(context, info);
         mSliceManager = SliceManager.from(context);
+        mUpdateThrottle = new SliceUpdateThrottle(context.getContentResolver(), sMainHandler);
+        mSliceCacheEnabled = isSliceCachingEnabled();
+        if (mSliceCacheEnabled && info != null && info.authority != null) {
+            for (String authority : info.authority.split(";")) {
+                context.getContentResolver().registerContentObserver(
+                        new Uri.Builder().scheme(ContentResolver.SCHEME_CONTENT)
+                                .authority(authority).build(),
+                        true, mSliceCacheObserver);
+            }
+        }
+    }
+
+    /**
+     * Returns whether slices bound from this provider may be memoized.
+     * <p>
+     * When enabled, the last slice returned by {@link #onBindSlice} is kept per uri and handed
+     * out again for subsequent binds of the same uri, until
+     * {@link ContentResolver#notifyChange(Uri, ContentObserver)} is called for that uri (or one
+     * of its ancestors) or the slice gets unpinned. Only providers which notify on every change
+     * of their slice content should opt in. Slices carrying {@link Slice#HINT_PARTIAL} are never
+     * cached.
+     */
+    protected boolean isSliceCachingEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns the minimum interval between two change notifications of {@code sliceUri} sent
+     * through {@link #notifySliceChanged(Uri)}. Defaults to 0, which does not rate limit.
+     * <p>
+     * Providers whose slices are backed by noisy sources can override this so that bursts of
+     * changes cause a single rebind per interval instead of one per change.
+     */
+    protected long getMinUpdateIntervalMs(@NonNull Uri sliceUri) {
+        return 0;
+    }
+
+    /**
+     * Notifies clients that the content of {@code sliceUri} changed.
+     * <p>
+     * Unlike calling {@link ContentResolver#notifyChange(Uri, ContentObserver)} directly, this
+     * delivers at most one notification per {@link #getMinUpdateIntervalMs(Uri)} for each uri.
+     * Notifications requested within the interval are coalesced into one sent when it elapses.
+     */
+    public final void notifySliceChanged(@NonNull Uri sliceUri) {
+        if (mSliceCacheEnabled) {
+            // Don't wait for the observer, a client may rebind as soon as it is notified.
+            invalidateCachedSlices(sliceUri);
+        }
+        mUpdateThrottle.notifyChange(sliceUri, getMinUpdateIntervalMs(sliceUri));
     }
 
     /**
@@ -191,6 +277,27 @@ public abstract class SliceProvider extends ContentProvider {
     public void onSlicePinned(Uri sliceUri) {
     }
 
+    /**
+     * Returns the executor on which {@link #onWarmUpSlice(Uri)} is run, or {@code null} if this
+     * provider does not want to be warmed up. Warm-up is disabled by default.
+     */
+    protected @Nullable Executor getSliceWarmUpExecutor() {
+        return null;
+    }
+
+    /**
+     * Called when a client is expected to bind a slice shortly: when the slice gets pinned, or when
+     * a slice pointing at it through {@link #SUBTYPE_TARGET_URI} has been bound.
+     * <p>
+     * This runs on the executor returned by {@link #getSliceWarmUpExecutor()}, so unlike
+     * {@link #onBindSlice} it may block. Providers should load and cache the data backing the slice
+     * here so that the following onBindSlice only needs to read from memory.
+     *
+     * @param sliceUri The uri of the slice that is about to be bound.
+     */
+    protected void onWarmUpSlice(@NonNull Uri sliceUri) {
+    }
+
     /**
      * Called to inform an app that a slices is no longer pinned.
      * <p>
@@ -376,9 +483,72 @@ public abstract class SliceProvider extends ContentProvider {
         } finally {
             sMainHandler.removeCallbacks(mAnr);
         }
+        scheduleWarmUp(getSliceWarmUpExecutor(), sliceUri);
+    }
+
+    private void scheduleWarmUp(Executor executor, Uri sliceUri) {
+        if (executor == null || sliceUri == null) {
+            return;
+        }
+        synchronized (mPendingWarmUps) {
+            if (!mPendingWarmUps.add(sliceUri)) {
+                return;
+            }
+        }
+        executor.execute(() -> {
+            try {
+                onWarmUpSlice(sliceUri);
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to warm up " + sliceUri, e);
+            } finally {
+                synchronized (mPendingWarmUps) {
+                    mPendingWarmUps.remove(sliceUri);
+                }
+            }
+        });
+    }
+
+    private void scheduleWarmUpForChildren(Uri parentUri, Slice parent) {
+        Executor executor = getSliceWarmUpExecutor();
+        if (executor == null || parent == null) {
+            return;
+        }
+        ArraySet<Uri> children = new ArraySet<>();
+        collectTargetUris(parent, parentUri.getAuthority(), children);
+        children.remove(parentUri);
+        for (int i = 0; i < children.size(); i++) {
+            scheduleWarmUp(executor, children.valueAt(i));
+        }
+    }
+
+    private static void collectTargetUris(Slice slice, String authority, ArraySet<Uri> out) {
+        for (SliceItem item : slice.getItems()) {
+            switch (item.getFormat()) {
+                case SliceItem.FORMAT_TEXT:
+                    if (SUBTYPE_TARGET_URI.equals(item.getSubType())
+                            && item.getText() != null) {
+                        Uri uri = Uri.parse(item.getText().toString());
+                        if (Objects.equals(authority, uri.getAuthority())) {
+                            out.add(uri);
+                        }
+                    }
+                    break;
+                case SliceItem.FORMAT_SLICE:
+                case SliceItem.FORMAT_ACTION:
+                    collectTargetUris(item.getSlice(), authority, out);
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 
     private void handleUnpinSlice(Uri sliceUri) {
+        if (mSliceCacheEnabled) {
+            synchronized (mSliceCacheLock) {
+                mSliceCache.remove(sliceUri);
+            }
+        }
         mCallback = "onSliceUnpinned";
         sMainHandler.postDelayed(mAnr, SLICE_BIND_ANR);
         try {
@@ -400,6 +570,34 @@ public abstract class SliceProvider extends ContentProvider {
         } catch (SecurityException e) {
             return createPermissionSlice(getContext(), sliceUri, pkg);
         }
+        mUpdateThrottle.onBind(sliceUri);
+        if (!mSliceCacheEnabled) {
+            Slice slice = bindSliceWithAnrCheck(sliceUri, supportedSpecs);
+            scheduleWarmUpForChildren(sliceUri, slice);
+            return slice;
+        }
+        long generation;
+        synchronized (mSliceCacheLock) {
+            CachedSlice cached = mSliceCache.get(sliceUri);
+            if (cached != null && cached.matches(supportedSpecs)) {
+                if (DEBUG) Log.d(TAG, "Serving cached slice " + sliceUri);
+                return cached.mSlice;
+            }
+            generation = mSliceCacheGeneration;
+        }
+        Slice slice = bindSliceWithAnrCheck(sliceUri, supportedSpecs);
+        if (slice != null && !slice.getHints().contains(Slice.HINT_PARTIAL)) {
+            synchronized (mSliceCacheLock) {
+                if (generation == mSliceCacheGeneration) {
+                    mSliceCache.put(sliceUri, new CachedSlice(slice, supportedSpecs));
+                }
+            }
+        }
+        scheduleWarmUpForChildren(sliceUri, slice);
+        return slice;
+    }
+
+    private Slice bindSliceWithAnrCheck(Uri sliceUri, List<SliceSpec> supportedSpecs) {
         mCallback = "onBindSlice";
         sMainHandler.postDelayed(mAnr, SLICE_BIND_ANR);
         try {
@@ -409,6 +607,35 @@ public abstract class SliceProvider extends ContentProvider {
         }
     }
 
+    private void invalidateCachedSlices(Uri changedUri) {
+        synchronized (mSliceCacheLock) {
+            mSliceCacheGeneration++;
+            if (changedUri == null) {
+                mSliceCache.clear();
+                return;
+            }
+            mSliceCache.keySet().removeIf(uri -> isSameOrDescendant(uri, changedUri));
+        }
+    }
+
+    private static boolean isSameOrDescendant(Uri uri, Uri ancestor) {
+        if (!Objects.equals(uri.getAuthority(), ancestor.getAuthority())) {
+            return false;
+        }
+        List<String> segments = uri.getPathSegments();
+        List<String> ancestorSegments = ancestor.getPathSegments();
+        return segments.size() >= ancestorSegments.size()
+                && segments.subList(0, ancestorSegments.size()).equals(ancestorSegments);
+    }
+
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(fd, writer, args);
+        if (mUpdateThrottle != null) {
+            mUpdateThrottle.dump("", writer);
+        }
+    }
+
     public Slice createPermissionSlice(Context context, Uri sliceUri,
             String callingPackage) {
         return new Slice.Builder(sliceUri, null).build();
@@ -449,6 +676,21 @@ public abstract class SliceProvider extends ContentProvider {
         }
     }
 
+    private static final class CachedSlice {
+        final Slice mSlice;
+        final Set<SliceSpec> mSpecs;
+
+        CachedSlice(Slice slice, List<SliceSpec> specs) {
+            mSlice = slice;
+            mSpecs = specs != null ? new ArraySet<>(specs) : Collections.emptySet();
+        }
+
+        boolean matches(List<SliceSpec> specs) {
+            return specs != null ? mSpecs.size() == specs.size() && mSpecs.containsAll(specs)
+                    : mSpecs.isEmpty();
+        }
+    }
+
     private final Runnable mAnr = () -> {
         Process.sendSignal(Process.myPid(), Process.SIGNAL_QUIT);
         Log.wtf(TAG, "Timed out while handling slice callback " + mCallback);
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices.base;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+
+/**
+ * Rate limits the change notifications of slices, per uri.
+ * <p>
+ * A notification is delivered right away if the previous one for the same uri is older than the
+ * minimum interval. Otherwise a single notification is delivered when the interval elapses, no
+ * matter how many were requested in between, so that the last change is never lost.
+ * <p>
+ * Requested and delivered notifications, as well as binds, are counted per uri.
+ */
+final class SliceUpdateThrottle {
+    private static final long SECOND_MS = 1000;
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler;
+
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private final ArrayMap<Uri, UriState> mStates = new ArrayMap<>();
+
+    SliceUpdateThrottle(@NonNull ContentResolver contentResolver, @NonNull Handler handler) {
+        mContentResolver = contentResolver;
+        mHandler = handler;
+    }
+
+    /**
+     * Requests a change notification for {@code uri}, delivering at most one every
+     * {@code minIntervalMs}.
+     */
+    void notifyChange(@NonNull Uri uri, long minIntervalMs) {
+        long now = SystemClock.uptimeMillis();
+        synchronized (mLock) {
+            UriState state = getOrCreateState(uri);
+            state.onRequested(now);
+            if (state.mTrailingScheduled) {
+                return;
+            }
+            long deliverAtMs = state.mLastDeliveredMs < 0 || minIntervalMs <= 0
+                    ? now : state.mLastDeliveredMs + minIntervalMs;
+            if (deliverAtMs > now) {
+                state.mTrailingScheduled = true;
+                mHandler.postAtTime(() -> deliverTrailing(uri), deliverAtMs);
+                return;
+            }
+            state.onDelivered(now);
+        }
+        mContentResolver.notifyChange(uri, null);
+    }
+
+    /**
+     * Records a bind of {@code uri}.
+     */
+    void onBind(@NonNull Uri uri) {
+        synchronized (mLock) {
+            getOrCreateState(uri).mBindCount++;
+        }
+    }
+
+    private void deliverTrailing(Uri uri) {
+        synchronized (mLock) {
+            UriState state = getOrCreateState(uri);
+            state.mTrailingScheduled = false;
+            state.onDelivered(SystemClock.uptimeMillis());
+        }
+        mContentResolver.notifyChange(uri, null);
+    }
+
+    /** Returns the number of notifications requested for {@code uri}. */
+    long getRequestedCount(@NonNull Uri uri) {
+        synchronized (mLock) {
+            UriState state = mStates.get(uri);
+            return state != null ? state.mRequestedCount : 0;
+        }
+    }
+
+    /** Returns the number of notifications delivered for {@code uri}. */
+    long getDeliveredCount(@NonNull Uri uri) {
+        synchronized (mLock) {
+            UriState state = mStates.get(uri);
+            return state != null ? state.mDeliveredCount : 0;
+        }
+    }
+
+    /** Returns the number of binds of {@code uri}. */
+    long getBindCount(@NonNull Uri uri) {
+        synchronized (mLock) {
+            UriState state = mStates.get(uri);
+            return state != null ? state.mBindCount : 0;
+        }
+    }
+
+    /**
+     * Prints the counters of all uris.
+     */
+    void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        synchronized (mLock) {
+            writer.print(prefix);
+            writer.println("Slice updates (" + mStates.size() + " uris):");
+            for (int i = 0; i < mStates.size(); i++) {
+                UriState state = mStates.valueAt(i);
+                writer.print(prefix);
+                writer.println("  " + mStates.keyAt(i));
+                writer.print(prefix);
+                writer.println("    requested=" + state.mRequestedCount
+                        + " delivered=" + state.mDeliveredCount
+                        + " binds=" + state.mBindCount
+                        + " peakRequestedPerSecond=" + state.mPeakRequestedPerSecond
+                        + " peakDeliveredPerSecond=" + state.mPeakDeliveredPerSecond);
+            }
+        }
+    }
+
+    @GuardedBy("mLock")
+    private UriState getOrCreateState(Uri uri) {
+        UriState state = mStates.get(uri);
+        if (state == null) {
+            state = new UriState();
+            mStates.put(uri, state);
+        }
+        return state;
+    }
+
+    private static final class UriState {
+        long mLastDeliveredMs = -1;
+        boolean mTrailingScheduled;
+        long mRequestedCount;
+        long mDeliveredCount;
+        long mBindCount;
+        long mRequestedSecondStartMs;
+        int mRequestedInSecond;
+        int mPeakRequestedPerSecond;
+        long mDeliveredSecondStartMs;
+        int mDeliveredInSecond;
+        int mPeakDeliveredPerSecond;
+
+        void onRequested(long now) {
+            mRequestedCount++;
+            if (now - mRequestedSecondStartMs >= SECOND_MS) {
+                mRequestedSecondStartMs = now;
+                mRequestedInSecond = 0;
+            }
+            mPeakRequestedPerSecond = Math.max(mPeakRequestedPerSecond, ++mRequestedInSecond);
+        }
+
+        void onDelivered(long now) {
+            mLastDeliveredMs = now;
+            mDeliveredCount++;
+            if (now - mDeliveredSecondStartMs >= SECOND_MS) {
+                mDeliveredSecondStartMs = now;
+                mDeliveredInSecond = 0;
+            }
+            mPeakDeliveredPerSecond = Math.max(mPeakDeliveredPerSecond, ++mDeliveredInSecond);
+        }
+    }
+}
@@ -96,6 +96,18 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
     public static final String SUBTYPE_SEEKBAR_MAX = "SUBTYPE_SEEKBAR_MAX";
     public static final String SUBTYPE_SEEKBAR_VALUE = "SUBTYPE_SEEKBAR_VALUE";
 
+    // Hint arrays shared by every item this builder creates. SliceItem and Slice.Builder never
+    // write into the arrays they are given, so these must not be modified either.
+    private static final String[] NO_HINTS = new String[0];
+    private static final String[] TITLE_HINTS = new String[] {HINT_TITLE};
+    private static final String[] ACTIONS_HINTS = new String[] {HINT_ACTIONS};
+    private static final String[] KEYWORDS_HINTS = new String[] {HINT_KEYWORDS};
+    private static final String[] NO_TINT_HINTS = new String[] {HINT_NO_TINT};
+    private static final String[] LARGE_IMAGE_HINTS = new String[] {HINT_NO_TINT, HINT_LARGE};
+
+    // Rows are built one after the other, so a single RowBuilderImpl is reset and reused.
+    private RowBuilderImpl mRowBuilderImpl;
+
     /**
      *
      */
@@ -186,7 +198,12 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
      */
     @NonNull
     private void addRow(@NonNull RowBuilder builder, String type) {
-        RowBuilderImpl impl = new RowBuilderImpl(createChildBuilder());
+        RowBuilderImpl impl = mRowBuilderImpl;
+        if (impl == null) {
+            impl = mRowBuilderImpl = new RowBuilderImpl(createChildBuilder());
+        } else {
+            impl.reset(createChildBuilder());
+        }
         impl.fillFrom(builder);
         impl.getBuilder().addHints(HINT_LIST_ITEM);
         getBuilder().addSubSlice(impl.build(), type);
@@ -234,11 +251,29 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
         setTtl(ttl == null ? INFINITY : ttl.toMillis());
     }
 
+    private static String[] getImageHints(int imageMode, boolean isLoading) {
+        if (!isLoading) {
+            if (imageMode == ICON_IMAGE) {
+                return NO_HINTS;
+            }
+            return imageMode == LARGE_IMAGE ? LARGE_IMAGE_HINTS : NO_TINT_HINTS;
+        }
+        if (imageMode == ICON_IMAGE) {
+            return new String[] {HINT_PARTIAL};
+        }
+        return imageMode == LARGE_IMAGE
+                ? new String[] {HINT_NO_TINT, HINT_LARGE, HINT_PARTIAL}
+                : new String[] {HINT_NO_TINT, HINT_PARTIAL};
+    }
+
     /**
      *
      */
     public static class RowBuilderImpl extends TemplateBuilderImpl {
 
+        /** Number of items a row may have besides its end and info items. */
+        private static final int MAX_ROW_ITEMS = 26;
+
         private SliceAction mPrimaryAction;
         private SliceAction mFollowupAction;
         private SliceItem mActionIdItem;
@@ -291,6 +326,40 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
             getBuilder().addInt(layoutDirection, SUBTYPE_LAYOUT_DIRECTION);
         }
 
+        /**
+         * Clears everything set on this builder so that it can build another row with the given
+         * slice builder.
+         */
+        void reset(Slice.Builder builder) {
+            setBuilder(builder);
+            mPrimaryAction = null;
+            mFollowupAction = null;
+            mActionIdItem = null;
+            mPageIdItem = null;
+            mTitleItem = null;
+            mSubtitleItem = null;
+            mStartItem = null;
+            mEndItems.clear();
+            mInfoItems.clear();
+            mContentDescr = null;
+            mUriItem = null;
+            mKeyItem = null;
+            mIconNeedsToBeProcessedItem = null;
+            mButtonStyleItem = null;
+            mSeekbarMinItem = null;
+            mSeekbarMaxItem = null;
+            mSeekbarValueItem = null;
+            mIsEnabledItem = null;
+            mIsSelectableItem = null;
+            mIsAddingInfoStatusItem = null;
+            mRadioGroupItem = null;
+            mInfoTextItem = null;
+            mInfoImageItem = null;
+            mInfoTitleIconItem = null;
+            mInfoSummaryItem = null;
+            mHasEndIconItem = null;
+        }
+
         void fillFrom(RowBuilder builder) {
             if (builder.getUri() != null) {
                 setBuilder(new Slice.Builder(builder.getUri()));
@@ -398,18 +467,8 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         @NonNull
         private void setTitleItem(IconCompat icon, int imageMode, boolean isLoading) {
-            ArrayList<String> hints = new ArrayList<>();
-            if (imageMode != ICON_IMAGE) {
-                hints.add(HINT_NO_TINT);
-            }
-            if (imageMode == LARGE_IMAGE) {
-                hints.add(HINT_LARGE);
-            }
-            if (isLoading) {
-                hints.add(HINT_PARTIAL);
-            }
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null /* subType */, hints);
+                    .addIcon(icon, null /* subType */, getImageHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -449,12 +508,12 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
 
         /** Set the actionId to be digested for logging. */
         public void setActionId(int actionId) {
-            mActionIdItem = new SliceItem(actionId, FORMAT_INT, EXTRA_ACTION_ID, new String[]{});
+            mActionIdItem = new SliceItem(actionId, FORMAT_INT, EXTRA_ACTION_ID, NO_HINTS);
         }
 
         /** Set the pageId to be digested for logging. */
         public void setPageId(int pageId) {
-            mPageIdItem = new SliceItem(pageId, FORMAT_INT, EXTRA_PAGE_ID, new String[]{});
+            mPageIdItem = new SliceItem(pageId, FORMAT_INT, EXTRA_PAGE_ID, NO_HINTS);
         }
 
         /**
@@ -469,14 +528,14 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          *
          */
         public void setTitle(CharSequence title, boolean isLoading) {
-            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, new String[]{HINT_TITLE});
+            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, TITLE_HINTS);
             if (isLoading) {
                 mTitleItem.addHint(HINT_PARTIAL);
             }
         }
 
         public void setTargetSliceUri(CharSequence uri) {
-            mUriItem = new SliceItem(uri, FORMAT_TEXT, TAG_TARGET_URI, new String[]{HINT_ACTIONS});
+            mUriItem = new SliceItem(uri, FORMAT_TEXT, TAG_TARGET_URI, ACTIONS_HINTS);
         }
 
         /**
@@ -484,12 +543,12 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setIconNeedsToBeProcessed(boolean needed) {
             mIconNeedsToBeProcessedItem = new SliceItem(
-                    needed ? 1 : 0, FORMAT_INT, SUBTYPE_ICON_NEED_TO_BE_PROCESSED, new String[]{});
+                    needed ? 1 : 0, FORMAT_INT, SUBTYPE_ICON_NEED_TO_BE_PROCESSED, NO_HINTS);
         }
 
         public void setHasEndIcon(boolean hasEndIcon) {
             mHasEndIconItem = new SliceItem(
-                    hasEndIcon ? 1 : 0, FORMAT_INT, EXTRA_HAS_END_ICON, new String[]{});
+                    hasEndIcon ? 1 : 0, FORMAT_INT, EXTRA_HAS_END_ICON, NO_HINTS);
         }
 
         /**
@@ -497,7 +556,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setButtonStyle(@BUTTONSTYLE int buttonStyle) {
             mButtonStyleItem = new SliceItem(
-                    buttonStyle, FORMAT_INT, SUBTYPE_BUTTON_STYLE, new String[]{});
+                    buttonStyle, FORMAT_INT, SUBTYPE_BUTTON_STYLE, NO_HINTS);
         }
 
         /**
@@ -505,7 +564,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setSeekbarMin(int value) {
             mSeekbarMinItem = new SliceItem(
-                    value, FORMAT_INT, SUBTYPE_SEEKBAR_MIN, new String[]{});
+                    value, FORMAT_INT, SUBTYPE_SEEKBAR_MIN, NO_HINTS);
         }
 
         /**
@@ -513,7 +572,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setSeekbarMax(int value) {
             mSeekbarMaxItem = new SliceItem(
-                    value, FORMAT_INT, SUBTYPE_SEEKBAR_MAX, new String[]{});
+                    value, FORMAT_INT, SUBTYPE_SEEKBAR_MAX, NO_HINTS);
         }
 
         /**
@@ -521,7 +580,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setSeekbarValue(int value) {
             mSeekbarValueItem = new SliceItem(
-                    value, FORMAT_INT, SUBTYPE_SEEKBAR_VALUE, new String[]{});
+                    value, FORMAT_INT, SUBTYPE_SEEKBAR_VALUE, NO_HINTS);
         }
 
         /**
@@ -529,7 +588,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setRadioGroup(CharSequence radioGroup) {
             mRadioGroupItem = new SliceItem(
-                    radioGroup, FORMAT_TEXT, TAG_RADIO_GROUP, new String[]{});
+                    radioGroup, FORMAT_TEXT, TAG_RADIO_GROUP, NO_HINTS);
         }
 
         /**
@@ -537,21 +596,21 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         public void setEnabled(boolean enabled) {
             mIsEnabledItem = new SliceItem(
-                    enabled ? 1 : 0, FORMAT_INT, SUBTYPE_IS_ENABLED, new String[]{});
+                    enabled ? 1 : 0, FORMAT_INT, SUBTYPE_IS_ENABLED, NO_HINTS);
         }
 
         public void setSelectable(boolean selectable) {
             mIsSelectableItem = new SliceItem(
-                    selectable ? 1 : 0, FORMAT_INT, SUBTYPE_IS_SELECTABLE, new String[]{});
+                    selectable ? 1 : 0, FORMAT_INT, SUBTYPE_IS_SELECTABLE, NO_HINTS);
         }
 
         public void setAddInfoStatus(boolean addInfoStatus) {
             mIsAddingInfoStatusItem = new SliceItem(
-                    addInfoStatus ? 1 : 0, FORMAT_INT, EXTRA_ADD_INFO_STATUS, new String[]{});
+                    addInfoStatus ? 1 : 0, FORMAT_INT, EXTRA_ADD_INFO_STATUS, NO_HINTS);
         }
 
         public void setKey(CharSequence key) {
-            mKeyItem = new SliceItem(key, FORMAT_TEXT, TAG_KEY, new String[] {HINT_KEYWORDS});
+            mKeyItem = new SliceItem(key, FORMAT_TEXT, TAG_KEY, KEYWORDS_HINTS);
         }
 
         public void setInfoText(CharSequence infoText) {
@@ -560,22 +619,22 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
 
         public void setInfoImage(IconCompat infoImage) {
             mInfoImageItem = new SliceItem(
-                    infoImage, FORMAT_IMAGE, EXTRA_PREFERENCE_INFO_IMAGE, new String[]{});
+                    infoImage, FORMAT_IMAGE, EXTRA_PREFERENCE_INFO_IMAGE, NO_HINTS);
         }
 
         public void setInfoTitleIcon(IconCompat infoImage) {
             mInfoTitleIconItem = new SliceItem(
-                    infoImage, FORMAT_IMAGE, EXTRA_PREFERENCE_INFO_TITLE_ICON, new String[]{});
+                    infoImage, FORMAT_IMAGE, EXTRA_PREFERENCE_INFO_TITLE_ICON, NO_HINTS);
         }
 
         public void setInfoTitle(CharSequence infoTitle) {
             mInfoTextItem = new SliceItem(
-                    infoTitle, FORMAT_TEXT, EXTRA_PREFERENCE_INFO_TEXT, new String[]{});
+                    infoTitle, FORMAT_TEXT, EXTRA_PREFERENCE_INFO_TEXT, NO_HINTS);
         }
 
         public void setInfoSummary(CharSequence infoSummary) {
             mInfoSummaryItem = new SliceItem(
-                    infoSummary, FORMAT_TEXT, EXTRA_PREFERENCE_INFO_SUMMARY, new String[]{});
+                    infoSummary, FORMAT_TEXT, EXTRA_PREFERENCE_INFO_SUMMARY, NO_HINTS);
         }
 
         /**
@@ -590,7 +649,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          *
          */
         public void setSubtitle(CharSequence subtitle, boolean isLoading) {
-            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, new String[0]);
+            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, NO_HINTS);
             if (isLoading) {
                 mSubtitleItem.addHint(HINT_PARTIAL);
             }
@@ -609,18 +668,8 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         @NonNull
         public void addEndItem(IconCompat icon, int imageMode, boolean isLoading) {
-            ArrayList<String> hints = new ArrayList<>();
-            if (imageMode != ICON_IMAGE) {
-                hints.add(HINT_NO_TINT);
-            }
-            if (imageMode == LARGE_IMAGE) {
-                hints.add(HINT_LARGE);
-            }
-            if (isLoading) {
-                hints.add(HINT_PARTIAL);
-            }
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null /* subType */, hints);
+                    .addIcon(icon, null /* subType */, getImageHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -655,6 +704,7 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
          */
         @Override
         public void apply(Slice.Builder b) {
+            b.ensureItemCapacity(MAX_ROW_ITEMS + mEndItems.size() + mInfoItems.size());
             if (mStartItem != null) {
                 b.addSubSlice(mStartItem);
             }
@@ -739,6 +789,8 @@ public class PreferenceSliceBuilderImpl extends TemplateBuilderImpl {
                         getBuilder()).addHints(HINT_TITLE, HINT_SHORTCUT);
                 b.addSubSlice(mFollowupAction.buildSlice(sb), SUBTYPE_FOLLOWUP_INTENT);
             }
+            // Lets clients recognize the rows that did not change when the slice is rebuilt.
+            b.addContentFingerprint();
         }
     }
 }
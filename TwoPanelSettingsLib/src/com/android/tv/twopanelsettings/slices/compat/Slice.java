@@ -74,6 +74,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -164,7 +165,7 @@ public final class Slice extends CustomVersionedParcelable implements VersionedP
     Slice(ArrayList<SliceItem> items, @SliceHint String[] hints, Uri uri,
             SliceSpec spec) {
         mHints = hints;
-        mItems = items.toArray(new SliceItem[items.size()]);
+        mItems = items.isEmpty() ? NO_ITEMS : items.toArray(new SliceItem[items.size()]);
         mUri = uri.toString();
         mSpec = spec;
     }
@@ -334,7 +335,7 @@ public final class Slice extends CustomVersionedParcelable implements VersionedP
          * Add hints to the Slice being constructed
          */
         public @NonNull Builder addHints(@NonNull @SliceHint String... hints) {
-            mHints.addAll(Arrays.asList(hints));
+            Collections.addAll(mHints, hints);
             return this;
         }
 
@@ -532,6 +533,28 @@ public final class Slice extends CustomVersionedParcelable implements VersionedP
             return addTimestamp(time, subType, hints.toArray(new String[hints.size()]));
         }
 
+        /**
+         * Append the {@link SliceFingerprint content fingerprint} of the items and hints added so
+         * far. This must be the last item added to the slice.
+         */
+        // @RestrictTo(Scope.LIBRARY_GROUP)
+        public @NonNull Builder addContentFingerprint() {
+            mItems.add(new SliceItem(SliceFingerprint.compute(mItems, mHints), FORMAT_LONG,
+                    SliceFingerprint.SUBTYPE_CONTENT_FINGERPRINT,
+                    SliceFingerprint.FINGERPRINT_HINTS));
+            return this;
+        }
+
+        /**
+         * Make room for at least {@code minCapacity} items, so that templates which know how many
+         * items they are about to add don't grow the item list several times.
+         */
+        // @RestrictTo(Scope.LIBRARY_GROUP)
+        public @NonNull Builder ensureItemCapacity(int minCapacity) {
+            mItems.ensureCapacity(minCapacity);
+            return this;
+        }
+
         /**
          * Add a SliceItem to the slice being constructed.
          */
@@ -545,7 +568,9 @@ public final class Slice extends CustomVersionedParcelable implements VersionedP
          * Construct the slice.
          */
         public @NonNull Slice build() {
-            return new Slice(mItems, mHints.toArray(new String[mHints.size()]), mUri, mSpec);
+            String[] hints = mHints.isEmpty()
+                    ? NO_HINTS : mHints.toArray(new String[mHints.size()]);
+            return new Slice(mItems, hints, mUri, mSpec);
         }
     }
 
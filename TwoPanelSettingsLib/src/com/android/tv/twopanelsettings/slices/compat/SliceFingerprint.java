@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices.compat;
+
+import static android.app.slice.Slice.HINT_KEYWORDS;
+import static android.app.slice.SliceItem.FORMAT_ACTION;
+import static android.app.slice.SliceItem.FORMAT_IMAGE;
+import static android.app.slice.SliceItem.FORMAT_INT;
+import static android.app.slice.SliceItem.FORMAT_LONG;
+import static android.app.slice.SliceItem.FORMAT_SLICE;
+import static android.app.slice.SliceItem.FORMAT_TEXT;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.graphics.drawable.IconCompat;
+import androidx.core.util.Pair;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Content fingerprints of slice rows.
+ * <p>
+ * A builder appends the fingerprint of a row as a {@link android.app.slice.SliceItem#FORMAT_LONG}
+ * item with the {@link #SUBTYPE_CONTENT_FINGERPRINT} subtype, so it travels with the slice through
+ * parceling. Two rows with the same fingerprint have the same content, which lets a client keep
+ * the {@link SliceItem} of the previous version of a slice for the rows that did not change and
+ * detect them with a reference check.
+ * <p>
+ * The fingerprint covers formats, subtypes, hints and values of all the items in the row, but not
+ * the row uri, which only reflects the position of the row. Values that cannot be compared across
+ * builds (bitmaps, bundles, remote inputs) are fingerprinted by identity, so rows holding them are
+ * never considered unchanged.
+ */
+public final class SliceFingerprint {
+
+    /** Subtype of the item holding the fingerprint of a row. */
+    public static final String SUBTYPE_CONTENT_FINGERPRINT = "content_fingerprint";
+
+    /** Returned by {@link #getFingerprint(SliceItem)} for rows without a fingerprint. */
+    public static final long NO_FINGERPRINT = 0;
+
+    // Hinted as keywords so that row templates don't render the fingerprint as a timestamp.
+    static final String[] FINGERPRINT_HINTS = new String[] {HINT_KEYWORDS};
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SliceFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of a slice made of the given items and hints.
+     */
+    static long compute(@NonNull List<SliceItem> items, @NonNull List<String> hints) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < hints.size(); i++) {
+            hash = mix(hash, hints.get(i));
+        }
+        for (int i = 0; i < items.size(); i++) {
+            hash = mix(hash, items.get(i));
+        }
+        // Keep NO_FINGERPRINT for rows that don't have one.
+        return hash == NO_FINGERPRINT ? FNV_OFFSET_BASIS : hash;
+    }
+
+    /**
+     * Returns the fingerprint of a row, or {@link #NO_FINGERPRINT} if the item is not a slice or
+     * was built without one.
+     */
+    public static long getFingerprint(@Nullable SliceItem rowItem) {
+        if (rowItem == null || !FORMAT_SLICE.equals(rowItem.getFormat())
+                || rowItem.getSlice() == null) {
+            return NO_FINGERPRINT;
+        }
+        SliceItem[] items = rowItem.getSlice().mItems;
+        // Builders append the fingerprint last.
+        for (int i = items.length - 1; i >= 0; i--) {
+            if (SUBTYPE_CONTENT_FINGERPRINT.equals(items[i].getSubType())
+                    && FORMAT_LONG.equals(items[i].getFormat())) {
+                return items[i].getLong();
+            }
+        }
+        return NO_FINGERPRINT;
+    }
+
+    /**
+     * Computes a structural hash of {@code slice}: its uri, hints and items, in order. Rows built
+     * with a fingerprint contribute it instead of their content, which keeps the hash cheap for
+     * slices made of such rows.
+     * <p>
+     * Two slices with the same hash can be rendered the same way. Values that are fingerprinted
+     * by identity make the hash differ between versions of a slice that hold them.
+     */
+    public static long hash(@NonNull Slice slice) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, slice.getUri() != null ? slice.getUri().toString() : null);
+        for (String hint : slice.mHints) {
+            hash = mix(hash, hint);
+        }
+        for (SliceItem item : slice.mItems) {
+            long fingerprint = getFingerprint(item);
+            if (fingerprint != NO_FINGERPRINT) {
+                hash = mix(hash, item.getSubType());
+                hash = mix(hash, fingerprint);
+            } else {
+                hash = mix(hash, item);
+            }
+        }
+        return hash == NO_FINGERPRINT ? FNV_OFFSET_BASIS : hash;
+    }
+
+    /**
+     * Replaces the top level rows of {@code slice} that are identical to a row of
+     * {@code previous} by the {@link SliceItem} instance of {@code previous}.
+     *
+     * @return the number of rows that were shared.
+     */
+    public static int shareUnchangedRows(@Nullable Slice previous, @NonNull Slice slice) {
+        if (previous == null || previous == slice) {
+            return 0;
+        }
+        HashMap<Long, SliceItem> previousRows = null;
+        for (SliceItem item : previous.mItems) {
+            long fingerprint = getFingerprint(item);
+            if (fingerprint != NO_FINGERPRINT) {
+                if (previousRows == null) {
+                    previousRows = new HashMap<>(previous.mItems.length * 2);
+                }
+                previousRows.put(fingerprint, item);
+            }
+        }
+        if (previousRows == null) {
+            return 0;
+        }
+        int shared = 0;
+        SliceItem[] items = slice.mItems;
+        for (int i = 0; i < items.length; i++) {
+            long fingerprint = getFingerprint(items[i]);
+            if (fingerprint == NO_FINGERPRINT) {
+                continue;
+            }
+            SliceItem previousItem = previousRows.get(fingerprint);
+            if (previousItem != null
+                    && previousItem.getFormat().equals(items[i].getFormat())
+                    && Objects.equals(previousItem.getSubType(), items[i].getSubType())) {
+                items[i] = previousItem;
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static long mix(long hash, @Nullable CharSequence value) {
+        if (value == null) {
+            return mix(hash, 0);
+        }
+        hash = mix(hash, value.length());
+        // Mix each char rather than String#hashCode(), which collides too easily ("Aa", "BB").
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        if (value instanceof Spanned) {
+            Spanned spanned = (Spanned) value;
+            for (Object span : spanned.getSpans(0, spanned.length(), Object.class)) {
+                hash = mix(hash, System.identityHashCode(span));
+                hash = mix(hash, spanned.getSpanStart(span));
+                hash = mix(hash, spanned.getSpanEnd(span));
+            }
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long mix(long hash, @NonNull SliceItem item) {
+        hash = mix(hash, item.getFormat());
+        hash = mix(hash, item.getSubType());
+        for (String hint : item.getHintArray()) {
+            hash = mix(hash, hint);
+        }
+        switch (item.getFormat()) {
+            case FORMAT_TEXT:
+                return mix(hash, item.getText());
+            case FORMAT_INT:
+                return mix(hash, item.getInt());
+            case FORMAT_LONG:
+                return mix(hash, item.getLong());
+            case FORMAT_IMAGE:
+                return mix(hash, item.getIcon());
+            case FORMAT_ACTION:
+                Pair<Object, Slice> action = (Pair<Object, Slice>) item.mObj;
+                // PendingIntents are equal, with equal hash codes, when they share a token.
+                hash = mix(hash, action.first != null ? action.first.hashCode() : 0);
+                return mix(hash, action.second);
+            case FORMAT_SLICE:
+                return mix(hash, item.getSlice());
+            default:
+                return mix(hash, System.identityHashCode(item.mObj));
+        }
+    }
+
+    private static long mix(long hash, @Nullable Slice slice) {
+        if (slice == null) {
+            return mix(hash, 0);
+        }
+        for (String hint : slice.mHints) {
+            hash = mix(hash, hint);
+        }
+        for (SliceItem item : slice.mItems) {
+            hash = mix(hash, item);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, @Nullable IconCompat icon) {
+        if (icon == null) {
+            return mix(hash, 0);
+        }
+        int type = icon.getType();
+        hash = mix(hash, type);
+        switch (type) {
+            case IconCompat.TYPE_RESOURCE:
+                hash = mix(hash, icon.getResPackage());
+                return mix(hash, icon.getResId());
+            case IconCompat.TYPE_URI:
+            case IconCompat.TYPE_URI_ADAPTIVE_BITMAP:
+                return mix(hash, icon.getUri().toString());
+            default:
+                return mix(hash, System.identityHashCode(icon));
+        }
+    }
+}
@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * A SliceProvider allows an app to provide {@link Slice}s to the Android OS. A slice is a piece of
@@ -134,6 +135,8 @@ public abstract class SliceProvider extends ContentProvider implements
     private String mAuthority;
     private String[] mAuthorities;
 
+    private SliceProviderWrapperContainer.SliceProviderWrapper mWrapper;
+
     /**
      * A version of constructing a SliceProvider that allows autogranting slice permissions
      * to apps that hold specific platform permissions.
@@ -177,8 +180,9 @@ public abstract class SliceProvider extends ContentProvider implements
     // @RestrictTo(RestrictTo.Scope.LIBRARY)
     @Override
     public Object getWrapper() {
-        return new SliceProviderWrapperContainer.SliceProviderWrapper(this,
+        mWrapper = new SliceProviderWrapperContainer.SliceProviderWrapper(this,
                 mAutoGrantPermissions);
+        return mWrapper;
     }
 
     @Override
@@ -364,6 +368,55 @@ public abstract class SliceProvider extends ContentProvider implements
         return Collections.emptyList();
     }
 
+    /**
+     * Returns the executor on which {@link #onWarmUpSlice(Uri)} runs, or {@code null} (the
+     * default) if this provider does not need to be warmed up.
+     */
+    @Nullable
+    public Executor getSliceWarmUpExecutor() {
+        return null;
+    }
+
+    /**
+     * Called on the {@link #getSliceWarmUpExecutor() warm-up executor} when a slice is about to
+     * be bound, i.e. when it gets pinned or when a slice linking to it has been bound. Blocking
+     * work needed by {@link #onBindSlice(Uri)} should be done here so that binding is a cache read.
+     */
+    public void onWarmUpSlice(@NonNull Uri sliceUri) {}
+
+    /**
+     * Returns the minimum interval between two change notifications of {@code sliceUri} sent
+     * through {@link #notifySliceChanged(Uri)}, or 0 (the default) to not rate limit them.
+     */
+    public long getMinUpdateIntervalMs(@NonNull Uri sliceUri) {
+        return 0;
+    }
+
+    /**
+     * Notifies clients that the content of {@code sliceUri} changed, delivering at most one
+     * notification per {@link #getMinUpdateIntervalMs(Uri)}. Notifications requested within the
+     * interval are coalesced into a single one sent when it elapses.
+     */
+    public final void notifySliceChanged(@NonNull Uri sliceUri) {
+        if (mWrapper != null) {
+            mWrapper.notifySliceChanged(sliceUri);
+        } else {
+            getContext().getContentResolver().notifyChange(sliceUri, null);
+        }
+    }
+
+    /**
+     * Returns whether the slices bound from this provider may be memoized and served again for
+     * repeated binds of the same uri.
+     * <p>
+     * A cached slice is dropped as soon as
+     * {@link ContentResolver#notifyChange(Uri, ContentObserver)} is called for its uri or one of
+     * its ancestors, so only providers that notify on every content change should return true.
+     */
+    public boolean isSliceCachingEnabled() {
+        return false;
+    }
+
     /**
      * Returns a list of slice URIs that are currently pinned.
      *
@@ -24,11 +24,14 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.ArrayMap;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
 
+import com.android.tv.twopanelsettings.slices.base.SliceMetrics;
+
 import java.util.concurrent.Executor;
 
 /**
@@ -87,12 +90,14 @@ public abstract class SliceViewManagerBase extends SliceViewManager {
         Uri mUri;
         final Executor mExecutor;
         final SliceCallback mCallback;
+        final SliceMetrics mMetrics;
         private boolean mPinned;
 
         SliceListenerImpl(Uri uri, Executor executor, SliceCallback callback) {
             mUri = uri;
             mExecutor = executor;
             mCallback = callback;
+            mMetrics = new SliceMetrics(mContext, uri);
         }
 
         void startListening() {
@@ -128,7 +133,9 @@ public abstract class SliceViewManagerBase extends SliceViewManager {
             @Override
             public void run() {
                 tryPin();
+                long startMs = SystemClock.uptimeMillis();
                 final Slice s = Slice.bindSlice(mContext, mUri, SUPPORTED_SPECS);
+                mMetrics.logBind(SystemClock.uptimeMillis() - startMs);
                 mExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
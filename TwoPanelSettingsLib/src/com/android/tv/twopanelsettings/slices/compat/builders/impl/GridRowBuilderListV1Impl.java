@@ -190,7 +190,7 @@ public class GridRowBuilderListV1Impl extends TemplateBuilderImpl {
          *
          */
         private void addImage(@Nullable IconCompat image, int imageMode, boolean isLoading) {
-            getBuilder().addIcon(image, null, parseImageMode(imageMode, isLoading));
+            getBuilder().addIcon(image, null, parseImageModeHints(imageMode, isLoading));
         }
 
         /**
@@ -84,6 +84,10 @@ import java.util.Set;
 // @RestrictTo(LIBRARY)
 // @Deprecated // Supported for TV
 public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder {
+    private static final String[] TITLE_HINTS = new String[] {HINT_TITLE};
+    private static final String[] SUMMARY_HINTS = new String[] {HINT_SUMMARY};
+    private static final String[] PRIMARY_ACTION_HINTS = new String[] {HINT_SHORTCUT, HINT_TITLE};
+
     private List<Slice> mSliceActions;
     private Set<String> mKeywords;
     private Slice mSliceHeader;
@@ -131,7 +135,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         }
         if (mHostExtras != null) {
             builder.addItem(new SliceItem(mHostExtras, FORMAT_BUNDLE, SUBTYPE_HOST_EXTRAS,
-                    new String[0]));
+                    NO_HINTS));
         }
     }
 
@@ -144,9 +148,9 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         Slice slice = super.build();
         boolean isLoading = SliceQuery.find(slice, null, HINT_PARTIAL, null) != null;
         boolean isEmpty = SliceQuery.find(slice, FORMAT_SLICE, HINT_LIST_ITEM, null) == null;
-        String[] hints = new String[] {HINT_SHORTCUT, HINT_TITLE};
-        SliceItem action = SliceQuery.find(slice, FORMAT_ACTION, hints, null);
-        List<SliceItem> possiblePrimaries = SliceQuery.findAll(slice, FORMAT_SLICE, hints, null);
+        SliceItem action = SliceQuery.find(slice, FORMAT_ACTION, PRIMARY_ACTION_HINTS, null);
+        List<SliceItem> possiblePrimaries =
+                SliceQuery.findAll(slice, FORMAT_SLICE, PRIMARY_ACTION_HINTS, null);
         if (!isLoading && !isEmpty && action == null
                 && (possiblePrimaries == null || possiblePrimaries.isEmpty())) {
             throw new IllegalStateException("A slice requires a primary action; ensure one of your "
@@ -379,7 +383,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
 
         void setTitleItem(IconCompat icon, int imageMode, boolean isLoading) {
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null, parseImageMode(imageMode, isLoading));
+                    .addIcon(icon, null, parseImageModeHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -466,7 +470,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         @Override
         void setTitleItem(IconCompat icon, int imageMode, boolean isLoading) {
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null, parseImageMode(imageMode, isLoading));
+                    .addIcon(icon, null, parseImageModeHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -539,7 +543,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
 
         void setTitleItem(IconCompat icon, int imageMode, boolean isLoading) {
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null, parseImageMode(imageMode, isLoading));
+                    .addIcon(icon, null, parseImageModeHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -670,7 +674,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         private void setTitleItem(@NonNull final IconCompat icon, final int imageMode,
                 final boolean isLoading) {
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null, parseImageMode(imageMode, isLoading));
+                    .addIcon(icon, null, parseImageModeHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -696,7 +700,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         /**
          */
         private void setTitle(@NonNull final CharSequence title, final boolean isLoading) {
-            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, new String[] {HINT_TITLE});
+            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, TITLE_HINTS);
             if (isLoading) {
                 mTitleItem.addHint(HINT_PARTIAL);
             }
@@ -711,7 +715,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         /**
          */
         private void setSubtitle(@NonNull final CharSequence subtitle, final boolean isLoading) {
-            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, new String[0]);
+            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, NO_HINTS);
             if (isLoading) {
                 mSubtitleItem.addHint(HINT_PARTIAL);
             }
@@ -729,7 +733,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         private void addEndItem(@NonNull final IconCompat icon, final int imageMode,
                 final boolean isLoading) {
             Slice.Builder sb = new Slice.Builder(getBuilder())
-                    .addIcon(icon, null, parseImageMode(imageMode, isLoading));
+                    .addIcon(icon, null, parseImageModeHints(imageMode, isLoading));
             if (isLoading) {
                 sb.addHints(HINT_PARTIAL);
             }
@@ -854,7 +858,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         /**
          */
         private void setTitle(CharSequence title, boolean isLoading) {
-            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, new String[] {HINT_TITLE});
+            mTitleItem = new SliceItem(title, FORMAT_TEXT, null, TITLE_HINTS);
             if (isLoading) {
                 mTitleItem.addHint(HINT_PARTIAL);
             }
@@ -863,7 +867,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         /**
          */
         private void setSubtitle(CharSequence subtitle, boolean isLoading) {
-            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, new String[0]);
+            mSubtitleItem = new SliceItem(subtitle, FORMAT_TEXT, null, NO_HINTS);
             if (isLoading) {
                 mSubtitleItem.addHint(HINT_PARTIAL);
             }
@@ -872,8 +876,7 @@ public class ListBuilderImpl extends TemplateBuilderImpl implements ListBuilder
         /**
          */
         private void setSummary(CharSequence summarySubtitle, boolean isLoading) {
-            mSummaryItem = new SliceItem(summarySubtitle, FORMAT_TEXT, null,
-                    new String[] {HINT_SUMMARY});
+            mSummaryItem = new SliceItem(summarySubtitle, FORMAT_TEXT, null, SUMMARY_HINTS);
             if (isLoading) {
                 mSummaryItem.addHint(HINT_PARTIAL);
             }
@@ -24,6 +24,7 @@ import static com.android.tv.twopanelsettings.slices.compat.builders.ListBuilder
 import static com.android.tv.twopanelsettings.slices.compat.builders.ListBuilder.LARGE_IMAGE;
 import static com.android.tv.twopanelsettings.slices.compat.builders.ListBuilder.RAW_IMAGE_LARGE;
 import static com.android.tv.twopanelsettings.slices.compat.builders.ListBuilder.RAW_IMAGE_SMALL;
+import static com.android.tv.twopanelsettings.slices.compat.builders.ListBuilder.SMALL_IMAGE;
 import static com.android.tv.twopanelsettings.slices.compat.core.SliceHints.HINT_RAW;
 import static com.android.tv.twopanelsettings.slices.compat.core.SliceHints.HINT_SHOW_LABEL;
 
@@ -42,6 +43,11 @@ import java.util.ArrayList;
 // @Deprecated // Supported for TV
 public abstract class TemplateBuilderImpl {
 
+    /** Shared hint arrays; never modify their contents. */
+    protected static final String[] NO_HINTS = new String[0];
+    private static final String[] NO_TINT_HINTS = new String[] {HINT_NO_TINT};
+    private static final String[] LARGE_IMAGE_HINTS = new String[] {HINT_NO_TINT, HINT_LARGE};
+
     private Slice.Builder mSliceBuilder;
     private final SliceSpec mSpec;
     private Clock mClock;
@@ -125,4 +131,27 @@ public abstract class TemplateBuilderImpl {
         }
         return hints;
     }
+
+    /**
+     * Same as {@link #parseImageMode(int, boolean)}, but returns a shared array for the common
+     * image modes instead of allocating a new list for every icon.
+     */
+    // @RestrictTo(LIBRARY)
+    @NonNull
+    protected String[] parseImageModeHints(int imageMode, boolean isLoading) {
+        if (!isLoading) {
+            switch (imageMode) {
+                case ICON_IMAGE:
+                    return NO_HINTS;
+                case SMALL_IMAGE:
+                    return NO_TINT_HINTS;
+                case LARGE_IMAGE:
+                    return LARGE_IMAGE_HINTS;
+                default:
+                    break;
+            }
+        }
+        ArrayList<String> hints = parseImageMode(imageMode, isLoading);
+        return hints.toArray(new String[hints.size()]);
+    }
 }
@@ -39,6 +39,7 @@ import com.android.tv.twopanelsettings.slices.compat.SliceConvert;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  */
@@ -81,6 +82,26 @@ public class SliceProviderWrapperContainer {
             return true;
         }
 
+        @Override
+        protected boolean isSliceCachingEnabled() {
+            return mSliceProvider.isSliceCachingEnabled();
+        }
+
+        @Override
+        protected Executor getSliceWarmUpExecutor() {
+            return mSliceProvider.getSliceWarmUpExecutor();
+        }
+
+        @Override
+        protected void onWarmUpSlice(@NonNull Uri sliceUri) {
+            mSliceProvider.onWarmUpSlice(sliceUri);
+        }
+
+        @Override
+        protected long getMinUpdateIntervalMs(@NonNull Uri sliceUri) {
+            return mSliceProvider.getMinUpdateIntervalMs(sliceUri);
+        }
+
         @Override
         public PendingIntent onCreatePermissionRequest(Uri sliceUri) {
             if (mAutoGrantPermissions != null) {
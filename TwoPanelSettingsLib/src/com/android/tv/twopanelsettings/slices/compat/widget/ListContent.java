@@ -45,6 +45,7 @@ import com.android.tv.twopanelsettings.slices.compat.core.SliceQuery;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
@@ -65,7 +66,21 @@ public class ListContent extends SliceContent {
         if (mSliceItem == null) {
             return;
         }
-        populate(slice);
+        populate(slice, null);
+    }
+
+    /**
+     * Creates the list content of an updated slice. Rows whose {@link SliceItem} is the same
+     * instance as in {@code previous}, see
+     * {@link com.android.tv.twopanelsettings.slices.compat.SliceFingerprint}, keep their
+     * {@link RowContent} instead of being parsed again.
+     */
+    public ListContent(@NonNull Slice slice, @Nullable ListContent previous) {
+        super(slice);
+        if (mSliceItem == null) {
+            return;
+        }
+        populate(slice, previous);
     }
 
     // @Deprecated // Supported for TV
@@ -74,11 +89,20 @@ public class ListContent extends SliceContent {
         if (mSliceItem == null) {
             return;
         }
-        populate(slice);
+        populate(slice, null);
     }
 
-    private void populate(Slice slice) {
+    private void populate(Slice slice, @Nullable ListContent previous) {
         if (slice == null) return;
+        IdentityHashMap<SliceItem, RowContent> previousRows = null;
+        if (previous != null) {
+            previousRows = new IdentityHashMap<>();
+            for (SliceContent content : previous.mRowItems) {
+                if (content instanceof RowContent && content != previous.mHeaderContent) {
+                    previousRows.put(content.getSliceItem(), (RowContent) content);
+                }
+            }
+        }
         mSliceActions = SliceMetadata.getSliceActions(slice);
         final SliceItem headerItem = findHeaderItem(slice);
         if (headerItem != null) {
@@ -105,7 +129,9 @@ public class ListContent extends SliceContent {
                     if (child.hasHint(HINT_HORIZONTAL)) {
                         mRowItems.add(new GridContent(child, i));
                     } else {
-                        mRowItems.add(new RowContent(child, i));
+                        RowContent row = previousRows != null ? previousRows.get(child) : null;
+                        mRowItems.add(row != null && row.getRowIndex() == i
+                                ? row : new RowContent(child, i));
                     }
                 }
             }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.graphics.drawable.LayerDrawable;
+import android.view.ContextThemeWrapper;
+import android.view.Gravity;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.core.content.ContextCompat;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the cost of processing the icon of a preference row with {@link IconUtil}, against a
+ * baseline which processes it as IconUtil did before caching anything.
+ */
+@RunWith(AndroidJUnit4.class)
+public class IconUtilBenchmark {
+    private static final int INSET = 12;
+    private static final int BITMAP_SIZE = 48;
+    private static final int LARGE_BITMAP_SIZE = 128;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private ContextThemeWrapper mContextThemeWrapper;
+    private Icon mResourceIcon;
+    private Icon mBitmapIcon;
+    private Icon mLargeBitmapIcon;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContextThemeWrapper = new ContextThemeWrapper(context, R.style.TwoPanelPreferenceTheme);
+        mResourceIcon = Icon.createWithResource(context, R.drawable.slice_error_icon);
+        mBitmapIcon = createBitmapIcon(BITMAP_SIZE);
+        mLargeBitmapIcon = createBitmapIcon(LARGE_BITMAP_SIZE);
+    }
+
+    @Test
+    public void baselineResourceIcon() {
+        baseline(mResourceIcon);
+    }
+
+    @Test
+    public void resourceIcon() {
+        compoundIcon(mResourceIcon);
+    }
+
+    @Test
+    public void baselineBitmapIcon() {
+        baseline(mBitmapIcon);
+    }
+
+    @Test
+    public void bitmapIcon() {
+        compoundIcon(mBitmapIcon);
+    }
+
+    @Test
+    public void baselineLargeBitmapIcon() {
+        baseline(mLargeBitmapIcon);
+    }
+
+    @Test
+    public void largeBitmapIcon() {
+        compoundIcon(mLargeBitmapIcon);
+    }
+
+    private void baseline(Icon icon) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            getBaselineCompoundIcon(mContextThemeWrapper,
+                    icon.loadDrawable(mContextThemeWrapper));
+        }
+    }
+
+    private void compoundIcon(Icon icon) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            IconUtil.getCompoundIcon(mContextThemeWrapper, icon);
+        }
+    }
+
+    private static Icon createBitmapIcon(int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.WHITE);
+        return Icon.createWithBitmap(bitmap);
+    }
+
+    /** Builds the compound icon as IconUtil did without any cache, parsing the tint each time. */
+    private static Drawable getBaselineCompoundIcon(Context context, Drawable icon) {
+        Drawable container =
+                ContextCompat.getDrawable(context, R.drawable.compound_icon_background);
+        Resources res = context.getResources();
+        try {
+            icon.setTintList(ColorStateList.createFromXml(
+                    res, res.getXml(R.color.two_panel_preference_icon_color)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        LayerDrawable compoundDrawable = new LayerDrawable(new Drawable[] {container, icon});
+        compoundDrawable.setLayerGravity(0, Gravity.CENTER);
+        compoundDrawable.setLayerGravity(1, Gravity.CENTER);
+        compoundDrawable.setLayerInset(1, INSET, INSET, INSET, INSET);
+        return compoundDrawable;
+    }
+}
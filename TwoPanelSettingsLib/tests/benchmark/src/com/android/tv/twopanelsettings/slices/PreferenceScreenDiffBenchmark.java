@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.tv.twopanelsettings.R;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Measures the main thread cost of applying a slice update to the preference screen of
+ * {@link SliceFragment}, with {@link PreferenceScreenDiff} and with the nested loop it replaced.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PreferenceScreenDiffBenchmark {
+    private static final int ROW_COUNT = 100;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private ContextThemeWrapper mContextThemeWrapper;
+    private PreferenceScreen mScreen;
+    private List<Preference> mRows;
+    private List<Preference> mUpdatedRows;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContextThemeWrapper = new ContextThemeWrapper(context, R.style.TwoPanelPreferenceTheme);
+        mScreen = new PreferenceManager(mContextThemeWrapper)
+                .createPreferenceScreen(mContextThemeWrapper);
+        mRows = createRows("summary");
+        // Every row moved and one summary changed.
+        mUpdatedRows = createRows("summary");
+        mUpdatedRows.get(ROW_COUNT / 2).setSummary("updated summary");
+        Collections.reverse(mUpdatedRows);
+        PreferenceScreenDiff.apply(mScreen, createRows("summary"));
+    }
+
+    @Test
+    @UiThreadTest
+    public void diffUnchanged() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            PreferenceScreenDiff.apply(mScreen, mRows);
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void nestedLoopUnchanged() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            applyWithNestedLoop(mScreen, mRows);
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void diffMovedAndChanged() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            PreferenceScreenDiff.apply(mScreen, mUpdatedRows);
+            PreferenceScreenDiff.apply(mScreen, mRows);
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void nestedLoopMovedAndChanged() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            applyWithNestedLoop(mScreen, mUpdatedRows);
+            applyWithNestedLoop(mScreen, mRows);
+        }
+    }
+
+    private List<Preference> createRows(String summary) {
+        List<Preference> rows = new ArrayList<>(ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            SlicePreference pref = new SlicePreference(mContextThemeWrapper);
+            pref.setKey("row" + i);
+            pref.setTitle("Row " + i);
+            pref.setSummary(summary);
+            pref.setUri("content://com.android.tv.settings.benchmark/row" + i);
+            pref.setFragment(SliceFragment.class.getCanonicalName());
+            rows.add(pref);
+        }
+        return rows;
+    }
+
+    /**
+     * The update applied by {@link SliceFragment} before {@link PreferenceScreenDiff}, kept as the
+     * baseline.
+     */
+    private static void applyWithNestedLoop(PreferenceScreen screen, List<Preference> newPrefs) {
+        IdentityHashMap<Preference, Preference> newToOld = new IdentityHashMap<>();
+        int index = 0;
+        while (index < screen.getPreferenceCount()) {
+            Preference oldPref = screen.getPreference(index);
+            boolean found = false;
+            for (Preference newPref : newPrefs) {
+                if (isSamePreference(oldPref, newPref)) {
+                    newToOld.put(newPref, oldPref);
+                    found = true;
+                    break;
+                }
+            }
+            if (found) {
+                index++;
+            } else {
+                screen.removePreference(oldPref);
+            }
+        }
+        for (int i = 0; i < newPrefs.size(); i++) {
+            Preference newPref = newPrefs.get(i);
+            Preference oldPref = newToOld.get(newPref);
+            if (oldPref == null) {
+                newPref.setOrder(i);
+                screen.addPreference(newPref);
+                continue;
+            }
+            oldPref.setOrder(i);
+            oldPref.setIcon(newPref.getIcon());
+            oldPref.setTitle(newPref.getTitle());
+            oldPref.setSummary(newPref.getSummary());
+            oldPref.setEnabled(newPref.isEnabled());
+            oldPref.setSelectable(newPref.isSelectable());
+            oldPref.setFragment(newPref.getFragment());
+            oldPref.getExtras().putAll(newPref.getExtras());
+            ((HasSliceUri) oldPref).setUri(((HasSliceUri) newPref).getUri());
+        }
+    }
+
+    private static boolean isSamePreference(Preference oldPref, Preference newPref) {
+        if (newPref instanceof HasSliceUri != oldPref instanceof HasSliceUri) {
+            return false;
+        }
+        if (newPref instanceof EmbeddedSlicePreference) {
+            return oldPref instanceof EmbeddedSlicePreference
+                    && Objects.equals(((EmbeddedSlicePreference) newPref).getUri(),
+                    ((EmbeddedSlicePreference) oldPref).getUri());
+        } else if (oldPref instanceof EmbeddedSlicePreference) {
+            return false;
+        }
+        return newPref.getKey() != null && newPref.getKey().equals(oldPref.getKey());
+    }
+}
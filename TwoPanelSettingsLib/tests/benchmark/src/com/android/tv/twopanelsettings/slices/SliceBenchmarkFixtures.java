@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+
+import androidx.core.graphics.drawable.IconCompat;
+
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder;
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder.RowBuilder;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+/**
+ * Fixture slices for the benchmarks, shaped like the Connected Devices and Network screens
+ * served by TvSettings.
+ */
+public final class SliceBenchmarkFixtures {
+
+    public static final Uri CONNECTED_DEVICES_URI = Uri.parse(
+            "content://com.android.tv.settings.accessories.sliceprovider/general");
+    public static final Uri NETWORK_URI = Uri.parse(
+            "content://com.android.tv.settings.network.sliceprovider/network");
+
+    /** Number of paired accessories listed on the Connected Devices fixture. */
+    public static final int ACCESSORY_COUNT = 6;
+    /** Number of access points listed on the Network fixture. */
+    public static final int ACCESS_POINT_COUNT = 20;
+
+    private static final String ACTION_BENCHMARK =
+            "com.android.tv.twopanelsettings.benchmark.ACTION";
+
+    private SliceBenchmarkFixtures() {
+    }
+
+    /** Builds a slice shaped like the Connected Devices main screen. */
+    public static Slice buildConnectedDevicesSlice(Context context) {
+        return buildConnectedDevicesSlice(context, createPendingIntent(context));
+    }
+
+    /**
+     * Builds a slice shaped like the Connected Devices main screen, with {@code action} as the
+     * action of every row, so that measurements don't include creating pending intents.
+     */
+    public static Slice buildConnectedDevicesSlice(Context context, PendingIntent action) {
+        PreferenceSliceBuilder psb = new PreferenceSliceBuilder(context, CONNECTED_DEVICES_URI);
+        psb.addScreenTitle(new RowBuilder()
+                .setTitle("Remotes & Accessories")
+                .setPageId(0x18000000));
+        psb.addPreference(new RowBuilder()
+                .setKey("bluetooth_toggle")
+                .setTitle("Bluetooth")
+                .setIcon(IconCompat.createWithResource(context,
+                        android.R.drawable.stat_sys_data_bluetooth))
+                .setIconNeedsToBeProcessed(true)
+                .addSwitch(action, true));
+        psb.addPreference(new RowBuilder()
+                .setKey("pair_remote")
+                .setTitle("Pair remote or accessory")
+                .setIcon(IconCompat.createWithResource(context, android.R.drawable.ic_input_add))
+                .setIconNeedsToBeProcessed(true)
+                .setPendingIntent(action));
+        psb.addPreferenceCategory(new RowBuilder()
+                .setKey("accessories")
+                .setTitle("Accessories"));
+        for (int i = 0; i < ACCESSORY_COUNT; i++) {
+            String address = String.format("00:11:22:33:44:%02X", i);
+            psb.addPreference(new RowBuilder()
+                    .setKey(address)
+                    .setTitle("Accessory " + i)
+                    .setSubtitle(i % 2 == 0 ? "Connected" : "Not connected")
+                    .setIcon(IconCompat.createWithResource(context,
+                            android.R.drawable.stat_sys_data_bluetooth))
+                    .setIconNeedsToBeProcessed(true)
+                    .setTargetSliceUri(CONNECTED_DEVICES_URI.buildUpon()
+                            .path("device")
+                            .appendQueryParameter("deviceAddr", address)
+                            .build()
+                            .toString()));
+        }
+        psb.addPreferenceCategory(new RowBuilder()
+                .setKey("official_remotes_category")
+                .setTitle("Remote"));
+        psb.addPreference(new RowBuilder()
+                .setKey("official_remote")
+                .setTitle("Remote settings")
+                .setTargetSliceUri(CONNECTED_DEVICES_URI.buildUpon()
+                        .path("official_remote").build().toString()));
+        psb.addPreference(new RowBuilder()
+                .setKey("fmr")
+                .setTitle("Find my remote")
+                .setSubtitle("Play a sound to locate the remote")
+                .setTargetSliceUri(CONNECTED_DEVICES_URI.buildUpon()
+                        .path("fmr").build().toString()));
+        psb.addPreference(new RowBuilder()
+                .setKey("backlight")
+                .setTitle("Remote backlight")
+                .setSubtitle("Automatic")
+                .setTargetSliceUri(CONNECTED_DEVICES_URI.buildUpon()
+                        .path("backlight").build().toString()));
+        return psb.buildForSettings();
+    }
+
+    /** Builds a slice shaped like the Network & Internet main screen. */
+    public static Slice buildNetworkSlice(Context context) {
+        return buildNetworkSlice(context, createPendingIntent(context));
+    }
+
+    /**
+     * Builds a slice shaped like the Network & Internet main screen, with {@code action} as the
+     * action of every row.
+     */
+    public static Slice buildNetworkSlice(Context context, PendingIntent action) {
+        PreferenceSliceBuilder psb = new PreferenceSliceBuilder(context, NETWORK_URI);
+        psb.addScreenTitle(new RowBuilder()
+                .setTitle("Network & Internet")
+                .setPageId(0x11000000));
+        psb.addPreference(new RowBuilder()
+                .setKey("wifi_enable")
+                .setTitle("Wi-Fi")
+                .addSwitch(action, true));
+        psb.addPreferenceCategory(new RowBuilder()
+                .setKey("wifi_list")
+                .setTitle("Available networks"));
+        for (int i = 0; i < ACCESS_POINT_COUNT; i++) {
+            String ssid = "Network " + i;
+            psb.addPreference(new RowBuilder()
+                    .setKey(ssid)
+                    .setTitle(ssid)
+                    .setSubtitle(i == 0 ? "Connected" : (i % 3 == 0 ? "Saved" : "Secured"))
+                    .setIcon(IconCompat.createWithResource(context,
+                            android.R.drawable.ic_lock_lock))
+                    .setIconNeedsToBeProcessed(true)
+                    .setContentDescription(ssid + ", signal " + (i % 4 + 1) + " of 4")
+                    .setPendingIntent(action));
+        }
+        psb.addPreference(new RowBuilder()
+                .setKey("wifi_collapse")
+                .setTitle("See all"));
+        psb.addPreferenceCategory(new RowBuilder()
+                .setKey("wifi_other")
+                .setTitle("Other options"));
+        psb.addPreference(new RowBuilder()
+                .setKey("wifi_add")
+                .setTitle("Add new network")
+                .setIcon(IconCompat.createWithResource(context, android.R.drawable.ic_input_add))
+                .setPendingIntent(action));
+        psb.addPreference(new RowBuilder()
+                .setKey("wifi_always_scan")
+                .setTitle("Scanning always available")
+                .setSubtitle("Let Google's location service and other apps scan for networks")
+                .addSwitch(action, false));
+        psb.addPreferenceCategory(new RowBuilder()
+                .setKey("ethernet")
+                .setTitle("Ethernet"));
+        psb.addPreference(new RowBuilder()
+                .setKey("ethernet_status")
+                .setTitle("Not connected"));
+        psb.addPreference(new RowBuilder()
+                .setKey("ethernet_dhcp")
+                .setTitle("Proxy settings")
+                .setTargetSliceUri(NETWORK_URI.buildUpon().path("proxy").build().toString()));
+        return psb.buildForSettings();
+    }
+
+    /** Creates the pending intent used as the action of the fixture rows. */
+    public static PendingIntent createPendingIntent(Context context) {
+        Intent intent = new Intent(ACTION_BENCHMARK).setPackage(context.getPackageName());
+        return PendingIntent.getBroadcast(context, /* requestCode= */ 0, intent,
+                PendingIntent.FLAG_IMMUTABLE);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.app.PendingIntent;
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.core.graphics.drawable.IconCompat;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder;
+import com.android.tv.twopanelsettings.slices.builders.PreferenceSliceBuilder.RowBuilder;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures building whole screens with {@link PreferenceSliceBuilder}, which providers do on
+ * every bind.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SliceBuilderBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    // Created once so that the loops measure the builder, not PendingIntent IPCs.
+    private PendingIntent mAction;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mAction = SliceBenchmarkFixtures.createPendingIntent(mContext);
+    }
+
+    @Test
+    public void buildConnectedDevicesScreen() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            SliceBenchmarkFixtures.buildConnectedDevicesSlice(mContext, mAction);
+        }
+    }
+
+    @Test
+    public void buildNetworkScreen() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            SliceBenchmarkFixtures.buildNetworkSlice(mContext, mAction);
+        }
+    }
+
+    /**
+     * Builds a screen made of a title and a single access point row, so that the allocation count
+     * is close to the cost of one row.
+     */
+    @Test
+    public void buildSingleRow() {
+        IconCompat icon = IconCompat.createWithResource(mContext, android.R.drawable.ic_lock_lock);
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            PreferenceSliceBuilder psb = new PreferenceSliceBuilder(
+                    mContext, SliceBenchmarkFixtures.NETWORK_URI);
+            psb.addPreference(new RowBuilder()
+                    .setKey("Network")
+                    .setTitle("Network")
+                    .setSubtitle("Connected")
+                    .setIcon(icon)
+                    .setIconNeedsToBeProcessed(true)
+                    .setTargetSliceUri("content://com.android.tv.settings.network/ap"));
+            psb.buildForSettings();
+        }
+    }
+}
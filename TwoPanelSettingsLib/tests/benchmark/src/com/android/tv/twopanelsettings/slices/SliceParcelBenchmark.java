@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.versionedparcelable.ParcelUtils;
+
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the conversions a slice goes through between the provider and SliceFragment: the
+ * bundle form used over the content provider call and the VersionedParcelable form.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SliceParcelBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Slice mConnectedDevicesSlice;
+    private Slice mNetworkSlice;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mConnectedDevicesSlice = SliceBenchmarkFixtures.buildConnectedDevicesSlice(context);
+        mNetworkSlice = SliceBenchmarkFixtures.buildNetworkSlice(context);
+    }
+
+    @Test
+    public void bundleRoundTripConnectedDevices() {
+        bundleRoundTrip(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void bundleRoundTripNetwork() {
+        bundleRoundTrip(mNetworkSlice);
+    }
+
+    @Test
+    public void parcelBundleRoundTripNetwork() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            try {
+                parcel.writeBundle(mNetworkSlice.toBundle());
+                parcel.setDataPosition(0);
+                new Slice(parcel.readBundle(Slice.class.getClassLoader()));
+            } finally {
+                parcel.recycle();
+            }
+        }
+    }
+
+    @Test
+    public void versionedParcelableRoundTripConnectedDevices() {
+        versionedParcelableRoundTrip(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void versionedParcelableRoundTripNetwork() {
+        versionedParcelableRoundTrip(mNetworkSlice);
+    }
+
+    private void bundleRoundTrip(Slice slice) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Bundle bundle = slice.toBundle();
+            new Slice(bundle);
+        }
+    }
+
+    private void versionedParcelableRoundTrip(Slice slice) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            try {
+                parcel.writeParcelable(ParcelUtils.toParcelable(slice), 0);
+                parcel.setDataPosition(0);
+                Parcelable parcelable = parcel.readParcelable(Slice.class.getClassLoader());
+                ParcelUtils.<Slice>fromParcelable(parcelable);
+            } finally {
+                parcel.recycle();
+            }
+        }
+    }
+}
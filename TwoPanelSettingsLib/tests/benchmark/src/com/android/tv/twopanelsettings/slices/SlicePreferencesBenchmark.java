@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.content.Context;
+import android.util.ArrayMap;
+import android.view.ContextThemeWrapper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.preference.Preference;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.tv.twopanelsettings.R;
+import com.android.tv.twopanelsettings.slices.compat.Slice;
+import com.android.tv.twopanelsettings.slices.compat.SliceItem;
+import com.android.tv.twopanelsettings.slices.compat.widget.ListContent;
+import com.android.tv.twopanelsettings.slices.compat.widget.SliceContent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the client side of {@link SliceFragment}'s update: building the {@link ListContent},
+ * extracting each row and inflating the matching preferences. The screen model benchmarks split
+ * this into the part built in the background and the part left on the main thread.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SlicePreferencesBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private ContextThemeWrapper mContextThemeWrapper;
+    private Slice mConnectedDevicesSlice;
+    private Slice mNetworkSlice;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContextThemeWrapper = new ContextThemeWrapper(context, R.style.TwoPanelPreferenceTheme);
+        mConnectedDevicesSlice = SliceBenchmarkFixtures.buildConnectedDevicesSlice(context);
+        mNetworkSlice = SliceBenchmarkFixtures.buildNetworkSlice(context);
+    }
+
+    @Test
+    public void listContentConnectedDevices() {
+        listContent(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void listContentNetwork() {
+        listContent(mNetworkSlice);
+    }
+
+    @Test
+    public void extractNetwork() {
+        List<SliceContent> rows = new ListContent(mNetworkSlice).getRowItems();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < rows.size(); i++) {
+                SlicePreferencesUtil.extract(rows.get(i).getSliceItem());
+            }
+        }
+    }
+
+    @Test
+    public void getPreferenceConnectedDevices() {
+        getPreferences(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void getPreferenceNetwork() {
+        getPreferences(mNetworkSlice);
+    }
+
+    @Test
+    public void buildScreenModelNetwork() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            buildScreenModel(mNetworkSlice);
+        }
+    }
+
+    @Test
+    public void applyScreenModelNetwork() {
+        SliceScreenModel model = buildScreenModel(mNetworkSlice);
+        String className = SliceFragment.class.getCanonicalName();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < model.mRows.size(); i++) {
+                SliceScreenModel.Row row = model.mRows.get(i);
+                SlicePreferencesUtil.getPreference(
+                        row.mItem, row.mData, row.mIcon, mContextThemeWrapper, className, null);
+            }
+        }
+    }
+
+    @Test
+    public void applyScreenModelNetworkRecycled() {
+        SliceScreenModel model = buildScreenModel(mNetworkSlice);
+        String className = SliceFragment.class.getCanonicalName();
+        ArrayMap<String, Preference> shown = new ArrayMap<>();
+        for (int i = 0; i < model.mRows.size(); i++) {
+            SliceScreenModel.Row row = model.mRows.get(i);
+            Preference pref = SlicePreferencesUtil.getPreference(
+                    row.mItem, row.mData, row.mIcon, mContextThemeWrapper, className, null);
+            if (pref != null && pref.getKey() != null) {
+                shown.put(pref.getKey(), pref);
+            }
+        }
+        ArrayMap<String, Preference> recyclable = new ArrayMap<>(shown.size());
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            recyclable.putAll(shown);
+            for (int i = 0; i < model.mRows.size(); i++) {
+                SliceScreenModel.Row row = model.mRows.get(i);
+                SlicePreferencesUtil.getPreference(row.mItem, row.mData, row.mIcon,
+                        mContextThemeWrapper, className, recyclable);
+            }
+        }
+    }
+
+    private SliceScreenModel buildScreenModel(Slice slice) {
+        return SliceScreenModel.build(slice, null, Collections.emptySet(),
+                mContextThemeWrapper.getContentResolver(), mContextThemeWrapper, true);
+    }
+
+    private void listContent(Slice slice) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            new ListContent(slice).getRowItems();
+        }
+    }
+
+    private void getPreferences(Slice slice) {
+        List<SliceContent> rows = new ListContent(slice).getRowItems();
+        String className = SliceFragment.class.getCanonicalName();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < rows.size(); i++) {
+                SliceItem item = rows.get(i).getSliceItem();
+                SlicePreferencesUtil.getPreference(item, mContextThemeWrapper, className, true);
+            }
+        }
+    }
+}
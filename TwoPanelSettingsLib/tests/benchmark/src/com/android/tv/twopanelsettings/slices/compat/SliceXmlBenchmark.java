@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices.compat;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.tv.twopanelsettings.slices.SliceBenchmarkFixtures;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Measures {@link SliceXml} serialization and parsing of the fixture screens.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SliceXmlBenchmark {
+
+    private static final String ENCODING = "utf-8";
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final SliceUtils.SerializeOptions mOptions = new SliceUtils.SerializeOptions()
+            .setActionMode(SliceUtils.SerializeOptions.MODE_CONVERT)
+            .setImageMode(SliceUtils.SerializeOptions.MODE_CONVERT);
+    private final SliceUtils.SliceActionListener mListener = (actionUri, context, intent) -> { };
+
+    private Context mContext;
+    private Slice mConnectedDevicesSlice;
+    private Slice mNetworkSlice;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mConnectedDevicesSlice = SliceBenchmarkFixtures.buildConnectedDevicesSlice(mContext);
+        mNetworkSlice = SliceBenchmarkFixtures.buildNetworkSlice(mContext);
+    }
+
+    @Test
+    public void serializeConnectedDevices() throws Exception {
+        serialize(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void serializeNetwork() throws Exception {
+        serialize(mNetworkSlice);
+    }
+
+    @Test
+    public void parseConnectedDevices() throws Exception {
+        parse(mConnectedDevicesSlice);
+    }
+
+    @Test
+    public void parseNetwork() throws Exception {
+        parse(mNetworkSlice);
+    }
+
+    private void serialize(Slice slice) throws Exception {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            SliceXml.serializeSlice(slice, mContext, new ByteArrayOutputStream(), ENCODING,
+                    mOptions);
+        }
+    }
+
+    private void parse(Slice slice) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SliceXml.serializeSlice(slice, mContext, output, ENCODING, mOptions);
+        byte[] xml = output.toByteArray();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            SliceXml.parseSlice(mContext, new ByteArrayInputStream(xml), ENCODING, mListener);
+        }
+    }
+}